@@ -1,6 +1,7 @@
 package dev.banji.LibReserve;
 
 import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
+import dev.banji.LibReserve.config.properties.ThrottlingConfigurationProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -9,7 +10,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 
 @SpringBootApplication
-@EnableConfigurationProperties({LibraryConfigurationProperties.class})
+@EnableConfigurationProperties({LibraryConfigurationProperties.class, ThrottlingConfigurationProperties.class})
 @EnableMethodSecurity
 @EnableScheduling
 @EnableWebSocketMessageBroker
@@ -2,6 +2,7 @@ package dev.banji.LibReserve.config;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.banji.LibReserve.config.encoders.CalibratedPasswordEncoder;
 import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
 import dev.banji.LibReserve.config.tokens.LibrarianAuthenticationToken;
 import dev.banji.LibReserve.config.tokens.StudentAuthenticationToken;
@@ -9,20 +10,22 @@ import dev.banji.LibReserve.config.userDetails.LibrarianSecurityDetails;
 import dev.banji.LibReserve.config.userDetails.StudentSecurityDetails;
 import dev.banji.LibReserve.exceptions.UserNotFoundException;
 import dev.banji.LibReserve.model.Librarian;
+import dev.banji.LibReserve.model.Student;
 import dev.banji.LibReserve.model.dtos.LibrarianLoginDetailsDto;
 import dev.banji.LibReserve.model.dtos.StudentLoginDetailsDto;
 import dev.banji.LibReserve.repository.LibrarianRepository;
 import dev.banji.LibReserve.repository.StudentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.factory.PasswordEncoderFactories;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.web.authentication.AuthenticationConverter;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
@@ -32,8 +35,8 @@ import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 @Configuration
@@ -71,16 +74,31 @@ public class ProjectConfig {
         };
     }
 
+    //UserDetailsPasswordService, used to persist a rehashed password after a successful login
     @Bean
-//    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
-    List<Jwt> blackListedJwtTokenList() {
-        return new ArrayList<>();
+    public UserDetailsPasswordService librarianUserDetailsPasswordService(LibrarianRepository librarianRepository) {
+        return (userDetails, newPassword) -> {
+            var staffNumber = ((LibrarianSecurityDetails) userDetails).getStaffNumber();
+            Librarian librarian = librarianRepository.findByStaffNumber(staffNumber).orElseThrow(UserNotFoundException::LibrarianNotFoundException);
+            librarian.setPassword(newPassword);
+            return new LibrarianSecurityDetails(librarianRepository.save(librarian));
+        };
+    }
+
+    @Bean
+    public UserDetailsPasswordService studentUserDetailsPasswordService(StudentRepository studentRepository) {
+        return (userDetails, newPassword) -> {
+            var matricNumber = ((StudentSecurityDetails) userDetails).getMatricNumber();
+            Student student = studentRepository.findByMatricNumber(matricNumber).orElseThrow(UserNotFoundException::StudentNotFoundException);
+            student.setPassword(newPassword);
+            return new StudentSecurityDetails(studentRepository.save(student));
+        };
     }
 
     @Bean
 //    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
-    LinkedList<String> libraryWaitingQueue() {
-        return new LinkedList<>(); //holds the matric number of the students...
+    List<Jwt> blackListedJwtTokenList() {
+        return new ArrayList<>();
     }
 
     //Authentication converters
@@ -156,8 +174,12 @@ public class ProjectConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    public CalibratedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                                     @Value("${library.properties.passwordHashing.targetHashTimeInMillis}") Long targetHashTimeInMillis,
+                                                     @Value("${library.properties.passwordHashing.minimumStrength}") Integer minimumStrength,
+                                                     @Value("${library.properties.passwordHashing.maximumStrength}") Integer maximumStrength) {
+        int strength = CalibratedPasswordEncoder.calibrate(Duration.ofMillis(targetHashTimeInMillis), minimumStrength, maximumStrength);
+        return new CalibratedPasswordEncoder(strength, meterRegistry);
     }
 
     //Command Line Runner
@@ -1,8 +1,10 @@
 package dev.banji.LibReserve.config;
 
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import dev.banji.LibReserve.config.filters.IdempotencyKeyFilter;
 import dev.banji.LibReserve.config.filters.JwtAccessTokenBlacklistAuthenticationFilter;
 import dev.banji.LibReserve.config.filters.LibrarianAuthenticationFilter;
+import dev.banji.LibReserve.config.filters.RequestThrottlingFilter;
 import dev.banji.LibReserve.config.filters.StudentAuthenticationFilter;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -10,12 +12,19 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.SessionManagementConfigurer;
 import org.springframework.security.config.annotation.web.configurers.oauth2.server.resource.OAuth2ResourceServerConfigurer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
@@ -38,12 +47,19 @@ import static org.springframework.security.oauth2.jose.jws.MacAlgorithm.HS512;
 @EnableMethodSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
+    private static final String SCRAPE_AUTHORITY = "METRICS_SCRAPER";
     private final LibrarianAuthenticationFilter librarianAuthenticationFilter;
     private final StudentAuthenticationFilter studentAuthenticationFilter;
     private final JwtAccessTokenBlacklistAuthenticationFilter jwtAccessTokenBlacklistAuthenticationFilter;
+    private final RequestThrottlingFilter requestThrottlingFilter;
+    private final IdempotencyKeyFilter idempotencyKeyFilter;
     private final RequestCache nullRequestCache = new NullRequestCache();
     @Value("${jwt.key}")
     private String jwtKey;
+    @Value("${library.properties.actuator.scrapeUsername}")
+    private String scrapeUsername;
+    @Value("${library.properties.actuator.scrapePassword}")
+    private String scrapePassword;
 
     private static void customize(SessionManagementConfigurer<HttpSecurity> sessionManagement) {
         sessionManagement.sessionCreationPolicy(STATELESS);
@@ -59,6 +75,15 @@ public class SecurityConfig {
         }).csrf(AbstractHttpConfigurer::disable).sessionManagement(SecurityConfig::customize).exceptionHandling(handler -> handler.authenticationEntryPoint(jwtAuthenticationEntryPoint)).build();
     }
 
+    @Bean
+    public SecurityFilterChain refreshTokenFilterChain(HttpSecurity httpSecurity) throws Exception {
+        return httpSecurity.securityMatcher("/api/lib-reserve/token/refresh")
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll()) //the refresh token in the body is validated by the JwtTokenService...
+                .requestCache(cache -> cache.requestCache(nullRequestCache))
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(SecurityConfig::customize).build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity, AuthenticationEntryPoint jwtAuthenticationEntryPoint) throws Exception {
         return httpSecurity
@@ -68,6 +93,51 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable) //disable csrf...
                 .oauth2ResourceServer(OAuth2ResourceServerConfigurer::jwt)
                 .addFilterAfter(jwtAccessTokenBlacklistAuthenticationFilter, BearerTokenAuthenticationFilter.class)
+                .addFilterAfter(requestThrottlingFilter, JwtAccessTokenBlacklistAuthenticationFilter.class)
+                .addFilterAfter(idempotencyKeyFilter, RequestThrottlingFilter.class)
+                .sessionManagement(SecurityConfig::customize).exceptionHandling(handler -> handler.authenticationEntryPoint(jwtAuthenticationEntryPoint)
+                ).build();
+    }
+
+    @Bean
+    @Order(1) //ahead of the actuator chain, which also matches this path...
+    public SecurityFilterChain actuatorHealthSecurityFilterChain(HttpSecurity httpSecurity) throws Exception {
+        return httpSecurity
+                .securityMatcher("/actuator/health", "/actuator/health/**")
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll()) //load balancer probes carry no credentials...
+                .requestCache(cache -> cache.requestCache(nullRequestCache))
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(SecurityConfig::customize).build();
+    }
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain prometheusScrapeSecurityFilterChain(HttpSecurity httpSecurity, PasswordEncoder passwordEncoder) throws Exception {
+        var scraperDetailsManager = new InMemoryUserDetailsManager();
+        if (!scrapePassword.isBlank()) //without a configured password nobody can scrape...
+            scraperDetailsManager.createUser(User.withUsername(scrapeUsername).password(passwordEncoder.encode(scrapePassword)).authorities(SCRAPE_AUTHORITY).build());
+        var scraperAuthenticationProvider = new DaoAuthenticationProvider();
+        scraperAuthenticationProvider.setUserDetailsService(scraperDetailsManager);
+        scraperAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        return httpSecurity
+                .securityMatcher("/actuator/prometheus")
+                .authorizeHttpRequests(auth -> auth.anyRequest().hasAuthority(SCRAPE_AUTHORITY)) //the scraper has its own long-lived credential instead of a librarian token...
+                .authenticationManager(new ProviderManager(scraperAuthenticationProvider))
+                .httpBasic(Customizer.withDefaults())
+                .requestCache(cache -> cache.requestCache(nullRequestCache))
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(SecurityConfig::customize).build();
+    }
+
+    @Bean
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity httpSecurity, AuthenticationEntryPoint jwtAuthenticationEntryPoint) throws Exception {
+        return httpSecurity
+                .securityMatcher("/actuator/**")
+                .authorizeHttpRequests(auth -> auth.anyRequest().hasAuthority("SCOPE_LIBRARIAN")) //metrics and the hibernate statistics are for librarians only...
+                .requestCache(cache -> cache.requestCache(nullRequestCache))
+                .csrf(AbstractHttpConfigurer::disable)
+                .oauth2ResourceServer(OAuth2ResourceServerConfigurer::jwt)
+                .addFilterAfter(jwtAccessTokenBlacklistAuthenticationFilter, BearerTokenAuthenticationFilter.class)
                 .sessionManagement(SecurityConfig::customize).exceptionHandling(handler -> handler.authenticationEntryPoint(jwtAuthenticationEntryPoint)
                 ).build();
     }
@@ -79,6 +149,20 @@ public class SecurityConfig {
         return registration;
     }
 
+    @Bean
+    public FilterRegistrationBean<RequestThrottlingFilter> requestThrottlingFilterRegistration(RequestThrottlingFilter filter) {
+        FilterRegistrationBean<RequestThrottlingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyKeyFilter> idempotencyKeyFilterRegistration(IdempotencyKeyFilter filter) {
+        FilterRegistrationBean<IdempotencyKeyFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public FilterRegistrationBean<StudentAuthenticationFilter> studentAuthenticationFilterRegistration(StudentAuthenticationFilter filter) {
         FilterRegistrationBean<StudentAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
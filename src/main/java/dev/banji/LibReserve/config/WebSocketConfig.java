@@ -1,14 +1,36 @@
 package dev.banji.LibReserve.config;
 
 
+import dev.banji.LibReserve.config.interceptors.OutboundBackpressureInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Service
+@RequiredArgsConstructor
 //@Conditional(NotificationCondition.class)
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final OutboundBackpressureInterceptor outboundBackpressureInterceptor;
+    @Value("${library.properties.webSocket.sendBufferSizeLimitInBytes}")
+    private Integer sendBufferSizeLimitInBytes;
+    @Value("${library.properties.webSocket.sendTimeLimitInMillis}")
+    private Integer sendTimeLimitInMillis;
+    @Value("${library.properties.webSocket.messageSizeLimitInBytes}")
+    private Integer messageSizeLimitInBytes;
+    @Value("${library.properties.webSocket.inboundThreads}")
+    private Integer inboundThreads;
+    @Value("${library.properties.webSocket.inboundQueueCapacity}")
+    private Integer inboundQueueCapacity;
+    @Value("${library.properties.webSocket.outboundThreads}")
+    private Integer outboundThreads;
+    @Value("${library.properties.webSocket.outboundQueueCapacity}")
+    private Integer outboundQueueCapacity;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws");
@@ -20,4 +42,25 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.enableSimpleBroker("/notifications");
         registry.setApplicationDestinationPrefixes("/libReserve/messaging/");
     }
-}
\ No newline at end of file
+
+    /**
+     * A session whose unsent messages exceed the buffer limit, or whose current send takes longer than the time limit, is closed.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimitInBytes)
+                .setSendTimeLimit(sendTimeLimitInMillis)
+                .setMessageSizeLimit(messageSizeLimitInBytes);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(inboundThreads).maxPoolSize(inboundThreads).queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor().corePoolSize(outboundThreads).maxPoolSize(outboundThreads).queueCapacity(outboundQueueCapacity);
+        registration.interceptors(outboundBackpressureInterceptor);
+    }
+}
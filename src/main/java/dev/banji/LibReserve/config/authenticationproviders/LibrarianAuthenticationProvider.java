@@ -1,5 +1,6 @@
 package dev.banji.LibReserve.config.authenticationproviders;
 
+import dev.banji.LibReserve.config.encoders.CalibratedPasswordEncoder;
 import dev.banji.LibReserve.config.tokens.LibrarianAuthenticationToken;
 import dev.banji.LibReserve.config.userDetails.LibrarianSecurityDetails;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -8,18 +9,20 @@ import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 @Component
 public class LibrarianAuthenticationProvider implements AuthenticationProvider {
-    private final PasswordEncoder passwordEncoder;
+    private final CalibratedPasswordEncoder passwordEncoder;
     private final UserDetailsService librarianUserDetailsService;
+    private final UserDetailsPasswordService librarianUserDetailsPasswordService;
 
-    public LibrarianAuthenticationProvider(PasswordEncoder passwordEncoder, UserDetailsService librarianUserDetailsService) {
+    public LibrarianAuthenticationProvider(CalibratedPasswordEncoder passwordEncoder, UserDetailsService librarianUserDetailsService, UserDetailsPasswordService librarianUserDetailsPasswordService) {
         this.passwordEncoder = passwordEncoder;
         this.librarianUserDetailsService = librarianUserDetailsService;
+        this.librarianUserDetailsPasswordService = librarianUserDetailsPasswordService;
     }
 
     @Override
@@ -37,6 +40,8 @@ public class LibrarianAuthenticationProvider implements AuthenticationProvider {
             throw new DisabledException("Account is disabled.");
         if (!librarianUserDetails.isAccountNonLocked())
             throw new LockedException("Account is locked.");
+        if (passwordEncoder.upgradeEncoding(librarianUserDetails.getPassword())) //the hash cost no longer matches the calibrated strength...
+            librarianUserDetailsPasswordService.updatePassword(librarianUserDetails, passwordEncoder.rehash(rawCredentials, librarianUserDetails.getPassword()));
         return LibrarianAuthenticationToken.authenticated(librarianUserDetails, librarianUserDetails.getAuthorities());
     }
 
@@ -1,5 +1,6 @@
 package dev.banji.LibReserve.config.authenticationproviders;
 
+import dev.banji.LibReserve.config.encoders.CalibratedPasswordEncoder;
 import dev.banji.LibReserve.config.tokens.StudentAuthenticationToken;
 import dev.banji.LibReserve.exceptions.UserNotFoundException;
 import dev.banji.LibReserve.repository.StudentRepository;
@@ -13,8 +14,8 @@ import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -27,15 +28,17 @@ import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
 @Component
 public class StudentAuthenticationProvider implements AuthenticationProvider {
     private final UserDetailsService studentUserDetailsService;
-    private final PasswordEncoder passwordEncoder;
+    private final UserDetailsPasswordService studentUserDetailsPasswordService;
+    private final CalibratedPasswordEncoder passwordEncoder;
     private final RestTemplate restTemplate;
     private final StudentRepository studentRepository;
 
     @Value("${library.properties.universityUrl}")
     private String universityUrl;
 
-    public StudentAuthenticationProvider(UserDetailsService studentUserDetailsService, StudentRepository studentRepository, PasswordEncoder passwordEncoder, RestTemplate restTemplate) {
+    public StudentAuthenticationProvider(UserDetailsService studentUserDetailsService, UserDetailsPasswordService studentUserDetailsPasswordService, StudentRepository studentRepository, CalibratedPasswordEncoder passwordEncoder, RestTemplate restTemplate) {
         this.studentUserDetailsService = studentUserDetailsService;
+        this.studentUserDetailsPasswordService = studentUserDetailsPasswordService;
         this.passwordEncoder = passwordEncoder;
         this.restTemplate = restTemplate;
         this.studentRepository = studentRepository;
@@ -56,6 +59,8 @@ public class StudentAuthenticationProvider implements AuthenticationProvider {
                 throw new BadCredentialsException("Credentials do not match.");
             if (!studentDetails.isEnabled()) throw new DisabledException("Student Account is disabled.");
             if (!studentDetails.isAccountNonLocked()) throw new LockedException("Account is locked.");
+            if (passwordEncoder.upgradeEncoding(studentDetails.getPassword())) //the hash cost no longer matches the calibrated strength...
+                studentUserDetailsPasswordService.updatePassword(studentDetails, passwordEncoder.rehash(rawCredentials, studentDetails.getPassword()));
             return StudentAuthenticationToken.authenticatedToken(studentDetails, studentDetails.getAuthorities());
         } catch (UserNotFoundException studentNotFoundException) {
             ResponseEntity<String> responseEntity = postRequest(restTemplate, matricNumber, rawCredentials);
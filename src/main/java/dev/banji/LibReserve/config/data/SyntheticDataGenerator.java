@@ -0,0 +1,198 @@
+package dev.banji.LibReserve.config.data;
+
+import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
+import dev.banji.LibReserve.model.enums.ReservationStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.SplittableRandom;
+
+import static dev.banji.LibReserve.model.enums.ReservationStatus.*;
+
+/**
+ * Bulk-loads students, their accounts and a reservation history with plain batched JDBC inserts, for performance work.
+ * Active with the synthetic-data profile, and usable directly from benchmarks and load tests through {@link #generate}.
+ * The rows bypass JPA, so ids are assigned here and the entity sequences are moved past them afterwards.
+ * Every generated student can log in with the password "synthetic".
+ */
+@Slf4j
+@Component
+@Profile("synthetic-data")
+public class SyntheticDataGenerator implements ApplicationRunner {
+    private static final String[] DEPARTMENTS = {"Computer Science", "Law", "Medicine", "Economics", "Mechanical Engineering", "History", "Mathematics", "Accounting"};
+    private static final String[] LEVELS = {"100", "200", "300", "400", "500"};
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final long numberOfSeats;
+    private final int students;
+    private final int reservationsPerStudent;
+    private final int historyInDays;
+    private final int futureInDays;
+    private final int batchSize;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder, LibraryConfigurationProperties libraryConfigurationProperties,
+                                  @Value("${library.properties.syntheticData.students}") Integer students,
+                                  @Value("${library.properties.syntheticData.reservationsPerStudent}") Integer reservationsPerStudent,
+                                  @Value("${library.properties.syntheticData.historyInDays}") Integer historyInDays,
+                                  @Value("${library.properties.syntheticData.futureInDays}") Integer futureInDays,
+                                  @Value("${library.properties.syntheticData.batchSize}") Integer batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.numberOfSeats = libraryConfigurationProperties.getNumberOfSeats();
+        this.students = students;
+        this.reservationsPerStudent = reservationsPerStudent;
+        this.historyInDays = historyInDays;
+        this.futureInDays = futureInDays;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generate(students, reservationsPerStudent);
+    }
+
+    /**
+     * Appends the given number of students, each with the given number of reservations, to whatever is already stored.
+     */
+    public void generate(int numberOfStudents, int reservationsPerStudent) {
+        long start = System.nanoTime();
+        long firstAccountId = nextId("account", "id");
+        long firstStudentId = nextId("student", "student_id");
+        long firstReservationId = nextId("student_reservation", "id");
+        String passwordHash = passwordEncoder.encode("synthetic"); //hashed once, hashing per row would dominate the run.
+
+        insertInBatches("insert into account (id, is_enabled, not_locked) values (?, ?, ?)", numberOfStudents, (statement, row) -> {
+            statement.setLong(1, firstAccountId + row);
+            statement.setBoolean(2, true);
+            statement.setBoolean(3, row % 500 != 0); //a few locked accounts.
+        });
+        insertInBatches("insert into student (student_id, first_name, middle_name, last_name, gender, password, phone_number, email_address, lga, state, country, account_id, matric_number, department, level) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", numberOfStudents, (statement, row) -> {
+            long studentId = firstStudentId + row;
+            statement.setLong(1, studentId);
+            statement.setString(2, "Student");
+            statement.setString(3, null);
+            statement.setString(4, "Synthetic" + studentId);
+            statement.setString(5, row % 2 == 0 ? "female" : "male");
+            statement.setString(6, passwordHash);
+            statement.setString(7, String.format("+234%010d", studentId));
+            statement.setString(8, "synthetic" + studentId + "@students.test");
+            statement.setString(9, "syntheticLga");
+            statement.setString(10, "syntheticState");
+            statement.setString(11, "syntheticCountry");
+            statement.setLong(12, firstAccountId + row);
+            statement.setString(13, String.format("SYN%08d", studentId));
+            statement.setString(14, DEPARTMENTS[row % DEPARTMENTS.length]);
+            statement.setString(15, LEVELS[row % LEVELS.length]);
+        });
+
+        LocalDate today = LocalDate.now();
+        var random = new SplittableRandom(firstReservationId);
+        long numberOfReservations = (long) numberOfStudents * reservationsPerStudent;
+        insertInBatches("insert into student_reservation (id, check_in_time, seat_number, intended_stay, reservation_creation_date, reservation_creation_time, date_reservation_was_made_for, " +
+                "time_reservation_was_made_for, reservation_status, check_out_date_and_time, student_id, reservation_code, stay_extended, total_extension_duration) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", numberOfReservations, (statement, row) -> {
+            LocalDate date = today.plusDays(random.nextInt(-historyInDays, futureInDays + 1));
+            LocalTime time = bookedTime(random);
+            Duration intendedStay = Duration.ofMinutes(30 + 15L * random.nextInt(15)); //30 minutes to 4 hours.
+            ReservationStatus status = status(date, today, random);
+            boolean stayExtended = status.name().endsWith("CHECKED_OUT") && random.nextInt(10) == 0;
+            Duration extension = stayExtended ? Duration.ofMinutes(15L * random.nextInt(1, 5)) : Duration.ZERO;
+            LocalDate creationDate = date.minusDays(random.nextInt(0, 8));
+
+            statement.setLong(1, firstReservationId + row);
+            statement.setTime(2, Time.valueOf(time));
+            statement.setLong(3, seatNumber(random));
+            statement.setObject(4, intendedStay);
+            statement.setDate(5, Date.valueOf(creationDate.isAfter(today) ? today : creationDate));
+            statement.setTime(6, Time.valueOf(LocalTime.of(random.nextInt(7, 22), random.nextInt(60))));
+            statement.setDate(7, Date.valueOf(date));
+            statement.setTime(8, Time.valueOf(time));
+            statement.setInt(9, status.ordinal());
+            statement.setTimestamp(10, status.name().endsWith("CHECKED_OUT") ?
+                    Timestamp.valueOf(LocalDateTime.of(date, time).plus(intendedStay).plus(extension).minusMinutes(random.nextInt(30))) : null);
+            statement.setLong(11, firstStudentId + row / reservationsPerStudent);
+            statement.setString(12, reservationCode(firstReservationId + row));
+            statement.setBoolean(13, stayExtended);
+            statement.setObject(14, extension);
+        });
+
+        restartSequence("account_seq", firstAccountId + numberOfStudents);
+        restartSequence("student_seq", firstStudentId + numberOfStudents);
+        restartSequence("student_reservation_seq", firstReservationId + numberOfReservations);
+        log.info("Generated {} students and {} reservations in {} ms", numberOfStudents, numberOfReservations, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void insertInBatches(String sql, long numberOfRows, RowSetter rowSetter) {
+        for (long batchStart = 0; batchStart < numberOfRows; batchStart += batchSize) {
+            long firstRow = batchStart;
+            int rowsInBatch = (int) Math.min(batchSize, numberOfRows - batchStart);
+            jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int index) throws SQLException {
+                    rowSetter.setValues(statement, (int) (firstRow + index));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rowsInBatch;
+                }
+            });
+        }
+    }
+
+    private long nextId(String table, String idColumn) {
+        Long maximumId = jdbcTemplate.queryForObject("select max(" + idColumn + ") from " + table, Long.class);
+        return maximumId == null ? 1 : maximumId + 1;
+    }
+
+    private void restartSequence(String sequence, long nextFreeId) { //the pooled optimizer hands out the 50 ids below the value it reads.
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (nextFreeId + 50));
+    }
+
+    private static LocalTime bookedTime(SplittableRandom random) { //opening hours, bunched around late morning and early afternoon.
+        int hour = Math.min(20, Math.max(8, (int) Math.round(13 + random.nextGaussian() * 2.5)));
+        return LocalTime.of(hour, 15 * random.nextInt(4));
+    }
+
+    private long seatNumber(SplittableRandom random) { //the first third of the seats, near the entrance, is taken twice as often.
+        return random.nextInt(3) == 0 ? random.nextLong(1, numberOfSeats + 1) : random.nextLong(1, numberOfSeats / 3 + 2);
+    }
+
+    private static ReservationStatus status(LocalDate date, LocalDate today, SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (date.isAfter(today)) return roll < 90 ? BOOKED : CANCELLED;
+        if (date.isEqual(today)) return roll < 60 ? BOOKED : roll < 85 ? STUDENT_CHECKED_OUT : CANCELLED; //nobody is in the occupancy queue after a restart.
+        return roll < 45 ? STUDENT_CHECKED_OUT : roll < 60 ? SYSTEM_CHECKED_OUT : roll < 70 ? LIBRARIAN_CHECKED_OUT : roll < 85 ? EXPIRED : roll < 98 ? CANCELLED : BLACKLISTED;
+    }
+
+    /**
+     * Derived from the row id, so codes are unique however many rows are loaded; random codes would repeat and break
+     * the lookups by code. The prefix makes them one character longer than the issued codes, which they never equal.
+     */
+    private static String reservationCode(long reservationId) {
+        String code = Long.toString(reservationId, Character.MAX_RADIX).toUpperCase();
+        return "S" + "0".repeat(Math.max(0, 5 - code.length())) + code;
+    }
+
+    @FunctionalInterface
+    private interface RowSetter {
+        void setValues(PreparedStatement statement, int row) throws SQLException;
+    }
+}
@@ -0,0 +1,123 @@
+package dev.banji.LibReserve.config.encoders;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A {@link DelegatingPasswordEncoder} whose bcrypt cost is calibrated at startup against a target hashing time.
+ * A stored bcrypt hash below the calibrated cost, or more than {@link #DOWNGRADE_TOLERANCE} rounds above it, is
+ * reported as needing an upgrade, so it gets rehashed on the next successful login. The calibration varies a little
+ * between starts and instances, so a hash within the band is left alone rather than rehashed back and forth.
+ */
+@Slf4j
+public class CalibratedPasswordEncoder implements PasswordEncoder {
+    private static final String BCRYPT_ID = "bcrypt";
+    private static final Pattern BCRYPT_STRENGTH_PATTERN = Pattern.compile("^\\{bcrypt}\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final String CALIBRATION_PASSWORD = "LibReserve-calibration";
+    static final int DOWNGRADE_TOLERANCE = 2; //each round doubles the work, so two rounds above is four times the target.
+    @Getter
+    private final int strength;
+    private final PasswordEncoder delegatingPasswordEncoder;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter upgradeCounter;
+    private final Counter downgradeCounter;
+    private final Counter migrationCounter;
+
+    public CalibratedPasswordEncoder(int strength, MeterRegistry meterRegistry) {
+        this.strength = strength;
+        var delegating = new DelegatingPasswordEncoder(BCRYPT_ID, new HashMap<>(Map.of(BCRYPT_ID, new BCryptPasswordEncoder(strength))));
+        //hashes produced by any other encoder are still matched through the default factory encoder.
+        delegating.setDefaultPasswordEncoderForMatches(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        this.delegatingPasswordEncoder = delegating;
+
+        this.encodeTimer = Timer.builder("libreserve.password.hash").tag("operation", "encode").publishPercentileHistogram().register(meterRegistry);
+        this.matchesTimer = Timer.builder("libreserve.password.hash").tag("operation", "matches").publishPercentileHistogram().register(meterRegistry);
+        this.upgradeCounter = Counter.builder("libreserve.password.rehash").tag("direction", "upgrade").register(meterRegistry);
+        this.downgradeCounter = Counter.builder("libreserve.password.rehash").tag("direction", "downgrade").register(meterRegistry);
+        this.migrationCounter = Counter.builder("libreserve.password.rehash").tag("direction", "migrate").register(meterRegistry);
+        Gauge.builder("libreserve.password.hash.strength", this, CalibratedPasswordEncoder::getStrength).register(meterRegistry);
+    }
+
+    /**
+     * Finds the bcrypt cost whose hashing time is closest to the target, within the given bounds.
+     * Each extra round doubles the work, so the search stops as soon as the target is passed.
+     */
+    public static int calibrate(Duration targetHashTime, int minimumStrength, int maximumStrength) {
+        long targetNanos = targetHashTime.toNanos();
+        new BCryptPasswordEncoder(minimumStrength).encode(CALIBRATION_PASSWORD); //warm up
+        long previousNanos = 0;
+        for (int strength = minimumStrength; strength <= maximumStrength; strength++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(strength).encode(CALIBRATION_PASSWORD);
+            long elapsedNanos = System.nanoTime() - start;
+            if (elapsedNanos >= targetNanos) {
+                //pick whichever side of the target is closer on a logarithmic scale.
+                int calibratedStrength = (strength > minimumStrength && (double) targetNanos / previousNanos < (double) elapsedNanos / targetNanos) ? strength - 1 : strength;
+                log.info("Calibrated bcrypt strength to {} for a target hashing time of {} ms", calibratedStrength, targetHashTime.toMillis());
+                return calibratedStrength;
+            }
+            previousNanos = elapsedNanos;
+        }
+        log.info("Calibrated bcrypt strength to the maximum of {}, target hashing time of {} ms was not reached", maximumStrength, targetHashTime.toMillis());
+        return maximumStrength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegatingPasswordEncoder.encode(rawPassword);
+        } finally {
+            encodeTimer.record(System.nanoTime() - start, NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegatingPasswordEncoder.matches(rawPassword, encodedPassword);
+        } finally {
+            matchesTimer.record(System.nanoTime() - start, NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isBlank()) return false;
+        Matcher matcher = BCRYPT_STRENGTH_PATTERN.matcher(encodedPassword);
+        if (matcher.find()) {
+            int storedStrength = Integer.parseInt(matcher.group(1));
+            return storedStrength < strength || storedStrength > strength + DOWNGRADE_TOLERANCE;
+        }
+        return true; //any other encoder (or an unprefixed hash) gets migrated to bcrypt.
+    }
+
+    /**
+     * Re-encodes a password that {@link #upgradeEncoding(String)} flagged and records the direction of the change.
+     */
+    public String rehash(CharSequence rawPassword, String encodedPassword) {
+        Matcher matcher = BCRYPT_STRENGTH_PATTERN.matcher(encodedPassword);
+        if (!matcher.find()) migrationCounter.increment();
+        else if (Integer.parseInt(matcher.group(1)) < strength) upgradeCounter.increment();
+        else downgradeCounter.increment();
+        return encode(rawPassword);
+    }
+}
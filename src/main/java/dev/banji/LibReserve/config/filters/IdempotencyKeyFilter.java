@@ -0,0 +1,208 @@
+package dev.banji.LibReserve.config.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
+/**
+ * Makes the booking and extension POSTs safe to retry. A request carrying an {@value #IDEMPOTENCY_KEY_HEADER} header is
+ * remembered together with a fingerprint of its method, path and body; a retry with the same key replays the stored
+ * response without reaching the booking engine. Keys are scoped to the authenticated user, and entries expire after a
+ * fixed time or once the store is full, oldest first.
+ */
+@Component
+public class IdempotencyKeyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String REPLAYED_HEADER = "Idempotency-Replayed";
+    private static final RequestMatcher IDEMPOTENT_REQUESTS = new OrRequestMatcher(
+            antMatcher(POST, "/api/lib-reserve/student/reservation/today/now"),
+            antMatcher(POST, "/api/lib-reserve/student/reservation/advance"),
+            antMatcher(POST, "/api/lib-reserve/student/reservation/advance/batch"),
+            antMatcher(POST, "/api/lib-reserve/student/reservation/extension"));
+    private final IdempotencyStore idempotencyStore;
+
+    public IdempotencyKeyFilter(@Value("${library.properties.idempotency.maximumEntries}") Integer maximumEntries,
+                                @Value("${library.properties.idempotency.timeToLiveInMinutes}") Long timeToLiveInMinutes) {
+        this.idempotencyStore = new IdempotencyStore(maximumEntries, Duration.ofMinutes(timeToLiveInMinutes).toNanos());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(IDEMPOTENCY_KEY_HEADER) == null || !IDEMPOTENT_REQUESTS.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        var cachedBodyRequest = new CachedBodyRequest(request);
+        String key = authentication.getName() + ":" + request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        String fingerprint = fingerprint(request.getMethod() + " " + request.getRequestURI(), cachedBodyRequest.body);
+
+        IdempotencyStore.Entry existingEntry = idempotencyStore.reserve(key, fingerprint);
+        if (existingEntry != null) {
+            replay(existingEntry, fingerprint, response);
+            return;
+        }
+
+        var cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(cachedBodyRequest, cachingResponse);
+            completed = cachingResponse.getStatus() < 500; //server errors are not remembered, the retry runs again.
+        } finally {
+            if (completed)
+                idempotencyStore.complete(key, new StoredResponse(cachingResponse.getStatus(), cachingResponse.getContentType(), cachingResponse.getContentAsByteArray()));
+            else idempotencyStore.release(key);
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private void replay(IdempotencyStore.Entry existingEntry, String fingerprint, HttpServletResponse response) throws IOException {
+        StoredResponse storedResponse = existingEntry.response();
+        if (!existingEntry.fingerprint().equals(fingerprint)) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), "The Idempotency-Key was already used for a different request.");
+        } else if (storedResponse == null) {
+            response.sendError(HttpStatus.CONFLICT.value(), "A request with this Idempotency-Key is still being processed.");
+        } else {
+            response.setStatus(storedResponse.status());
+            if (storedResponse.contentType() != null) response.setContentType(storedResponse.contentType());
+            response.setHeader(REPLAYED_HEADER, "true");
+            response.getOutputStream().write(storedResponse.body());
+        }
+    }
+
+    private static String fingerprint(String target, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(target.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    /**
+     * A time-bounded, size-bounded map from key to response. Small and only touched twice per request, so a single lock is enough.
+     */
+    private static final class IdempotencyStore {
+        private final long timeToLiveInNanos;
+        private final LinkedHashMap<String, Entry> entries;
+
+        private IdempotencyStore(int maximumEntries, long timeToLiveInNanos) {
+            this.timeToLiveInNanos = timeToLiveInNanos;
+            this.entries = new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maximumEntries;
+                }
+            };
+        }
+
+        /**
+         * @return the live entry for the key, or null if the caller now owns the key and has to process the request.
+         */
+        private synchronized Entry reserve(String key, String fingerprint) {
+            long now = System.nanoTime();
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.createdAt() < timeToLiveInNanos) return entry;
+            entries.remove(key); //re-inserted, so insertion order stays the expiry order.
+            entries.put(key, new Entry(fingerprint, null, now));
+            return null;
+        }
+
+        private synchronized void complete(String key, StoredResponse response) {
+            Entry entry = entries.get(key);
+            if (entry != null) entries.put(key, new Entry(entry.fingerprint(), response, entry.createdAt()));
+        }
+
+        private synchronized void release(String key) {
+            entries.remove(key);
+        }
+
+        /**
+         * @param response null while the first request is still being processed.
+         */
+        private record Entry(String fingerprint, StoredResponse response, long createdAt) {
+        }
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            var inputStream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return inputStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) { //the body is already in memory, so all of it is available right away.
+                    try {
+                        if (!isFinished()) readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException ioException) {
+                        readListener.onError(ioException);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return inputStream.read();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
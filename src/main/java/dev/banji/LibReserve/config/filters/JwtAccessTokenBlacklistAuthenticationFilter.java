@@ -5,8 +5,6 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
@@ -23,13 +21,11 @@ public class JwtAccessTokenBlacklistAuthenticationFilter extends OncePerRequestF
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        var jwtAuthenticationToken = (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
-        if (jwtAuthenticationToken == null) { //meaning that the BearerTokenAuthenticationFilter resolver couldn't get a token...
-            throw new AuthenticationCredentialsNotFoundException("Authentication Token not found!!!");
-        }
-        Jwt jwtToken = jwtAuthenticationToken.getToken();
-        if (blackListedJwtTokenList.contains(jwtToken)) {
-            throw new AccessDeniedException("Authentication Token is invalid");
+        //without a token, the BearerTokenAuthenticationFilter resolver couldn't get one and the request goes on unauthenticated...
+        if (SecurityContextHolder.getContext().getAuthentication() instanceof JwtAuthenticationToken jwtAuthenticationToken) {
+            Jwt jwtToken = jwtAuthenticationToken.getToken();
+            if (blackListedJwtTokenList.contains(jwtToken)) //a logged out token counts as no token, so the chain's entry point answers with a 401...
+                SecurityContextHolder.clearContext();
         }
         doFilter(request, response, filterChain);
     }
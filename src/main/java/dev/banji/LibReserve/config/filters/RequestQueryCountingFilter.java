@@ -0,0 +1,54 @@
+package dev.banji.LibReserve.config.filters;
+
+import dev.banji.LibReserve.config.hibernate.RequestQueryCounter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toUnmodifiableSet;
+
+/**
+ * Opens and closes the per-request Hibernate counters. Registered as a plain servlet filter ordered ahead of the
+ * security chain, so every request is counted, including the ones security rejects and the queries security runs.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class RequestQueryCountingFilter extends OncePerRequestFilter {
+    private static final Set<String> KNOWN_METHODS = Arrays.stream(HttpMethod.values()).map(HttpMethod::name).collect(toUnmodifiableSet());
+    private final RequestQueryCounter requestQueryCounter;
+    private final boolean enabled;
+
+    public RequestQueryCountingFilter(RequestQueryCounter requestQueryCounter, @Value("${library.properties.hibernateStatistics.enabled}") Boolean enabled) {
+        this.requestQueryCounter = requestQueryCounter;
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        requestQueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String method = KNOWN_METHODS.contains(request.getMethod()) ? request.getMethod() : "OTHER"; //clients may send any method token, the routes stay bounded.
+            requestQueryCounter.finish(method + " " + (route == null ? "unmapped" : route));
+        }
+    }
+}
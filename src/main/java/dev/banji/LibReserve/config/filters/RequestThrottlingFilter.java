@@ -0,0 +1,107 @@
+package dev.banji.LibReserve.config.filters;
+
+import dev.banji.LibReserve.config.properties.ThrottlingConfigurationProperties;
+import dev.banji.LibReserve.config.properties.ThrottlingConfigurationProperties.RouteGroup;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Rate limits every authenticated subject per route group. Each group keeps a fixed table of token buckets, and a
+ * subject is hashed onto one of them. A bucket is stored as a single theoretical arrival time (the generic cell rate
+ * algorithm), so taking a token is one compare-and-set on an {@link AtomicLongArray} slot: no locks and no allocation
+ * on the request path. Rejected requests get a 429 with Retry-After.
+ */
+@Component
+public class RequestThrottlingFilter extends OncePerRequestFilter {
+    private final boolean enabled;
+    private final ThrottledRouteGroup[] routeGroups;
+
+    public RequestThrottlingFilter(ThrottlingConfigurationProperties throttlingConfigurationProperties, MeterRegistry meterRegistry) {
+        this.enabled = throttlingConfigurationProperties.getEnabled();
+        int buckets = Integer.highestOneBit(Math.max(1, throttlingConfigurationProperties.getBucketsPerRouteGroup() - 1)) << 1;
+        List<RouteGroup> routeGroupList = throttlingConfigurationProperties.getRouteGroups() == null ? List.of() : throttlingConfigurationProperties.getRouteGroups();
+        this.routeGroups = routeGroupList.stream().map(routeGroup -> new ThrottledRouteGroup(routeGroup, buckets,
+                Counter.builder("libreserve.requests.throttled").tag("group", routeGroup.name()).register(meterRegistry))).toArray(ThrottledRouteGroup[]::new);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || routeGroups.length == 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        ThrottledRouteGroup routeGroup = authentication == null ? null : matchingRouteGroup(request.getRequestURI());
+        if (routeGroup != null) {
+            long waitInNanos = routeGroup.tryAcquire(authentication.getName());
+            if (waitInNanos > 0) {
+                routeGroup.throttledCounter.increment();
+                response.setHeader("Retry-After", Long.toString(Math.max(1, (waitInNanos + SECONDS.toNanos(1) - 1) / SECONDS.toNanos(1))));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, please retry later.");
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private ThrottledRouteGroup matchingRouteGroup(String requestUri) {
+        for (ThrottledRouteGroup routeGroup : routeGroups) //plain loops, an iterator would allocate.
+            for (String pathPrefix : routeGroup.pathPrefixes)
+                if (requestUri.startsWith(pathPrefix)) return routeGroup;
+        return null;
+    }
+
+    private static final class ThrottledRouteGroup {
+        private final String[] pathPrefixes;
+        private final AtomicLongArray theoreticalArrivalTimes; //per bucket, in nanos relative to the origin.
+        private final int bucketMask;
+        private final long emissionIntervalInNanos; //the time it takes to refill one token.
+        private final long burstToleranceInNanos; //the time it takes to refill the whole bucket.
+        private final long origin = System.nanoTime();
+        private final Counter throttledCounter;
+
+        private ThrottledRouteGroup(RouteGroup routeGroup, int buckets, Counter throttledCounter) {
+            this.pathPrefixes = routeGroup.pathPrefixes().toArray(String[]::new);
+            this.theoreticalArrivalTimes = new AtomicLongArray(buckets);
+            this.bucketMask = buckets - 1;
+            this.emissionIntervalInNanos = (long) (SECONDS.toNanos(1) / routeGroup.refillPerSecond());
+            this.burstToleranceInNanos = emissionIntervalInNanos * routeGroup.capacity();
+            this.throttledCounter = throttledCounter;
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise how long the subject has to wait for the next one.
+         */
+        private long tryAcquire(String subject) {
+            int bucket = spread(subject.hashCode()) & bucketMask;
+            long now = System.nanoTime() - origin + burstToleranceInNanos; //an untouched bucket (0) starts full.
+            while (true) {
+                long theoreticalArrivalTime = theoreticalArrivalTimes.get(bucket);
+                long nextArrivalTime = Math.max(theoreticalArrivalTime, now) + emissionIntervalInNanos;
+                long waitInNanos = nextArrivalTime - now - burstToleranceInNanos;
+                if (waitInNanos > 0) return waitInNanos;
+                if (theoreticalArrivalTimes.compareAndSet(bucket, theoreticalArrivalTime, nextArrivalTime)) return 0;
+            }
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.banji.LibReserve.config.hibernate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hooks the {@link RequestQueryCounter} into entity loads and collection fetches once the session factory exists.
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateListenerRegistrar {
+    private final EntityManagerFactory entityManagerFactory;
+    private final RequestQueryCounter requestQueryCounter;
+    @Value("${library.properties.hibernateStatistics.enabled}")
+    private Boolean enabled;
+
+    @PostConstruct
+    public void registerListeners() {
+        if (!enabled) return;
+        EventListenerRegistry eventListenerRegistry = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry().getService(EventListenerRegistry.class);
+        eventListenerRegistry.appendListeners(EventType.POST_LOAD, requestQueryCounter);
+        eventListenerRegistry.appendListeners(EventType.INIT_COLLECTION, requestQueryCounter);
+    }
+}
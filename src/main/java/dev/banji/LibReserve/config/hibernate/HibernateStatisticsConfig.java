@@ -0,0 +1,32 @@
+package dev.banji.LibReserve.config.hibernate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.hibernate.cfg.AvailableSettings.GENERATE_STATISTICS;
+import static org.hibernate.cfg.AvailableSettings.STATEMENT_INSPECTOR;
+import static org.hibernate.stat.internal.StatisticsInitiator.STATS_BUILDER;
+
+/**
+ * Turns on Hibernate statistics, the slow query log and the per-request counters when
+ * library.properties.hibernateStatistics.enabled is set. Collecting statistics has a cost, so it is off by default.
+ */
+@Configuration
+public class HibernateStatisticsConfig {
+    @Value("${library.properties.hibernateStatistics.enabled}")
+    private Boolean enabled;
+    @Value("${library.properties.hibernateStatistics.slowQueryThresholdInMillis}")
+    private Long slowQueryThresholdInMillis;
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateStatisticsCustomizer(RequestQueryCounter requestQueryCounter) {
+        return hibernateProperties -> {
+            if (!enabled) return;
+            hibernateProperties.put(GENERATE_STATISTICS, true);
+            hibernateProperties.put(STATS_BUILDER, new SlowQueryStatisticsFactory(slowQueryThresholdInMillis));
+            hibernateProperties.put(STATEMENT_INSPECTOR, requestQueryCounter);
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package dev.banji.LibReserve.config.hibernate;
+
+import dev.banji.LibReserve.model.dtos.HibernateStatisticsDto;
+import dev.banji.LibReserve.model.dtos.HibernateStatisticsDto.QueryStatisticsDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static dev.banji.LibReserve.config.hibernate.SlowQueryStatisticsFactory.redact;
+
+/**
+ * Exposes the Hibernate statistics on actuator/hibernate.
+ */
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+    private final Statistics statistics;
+    private final RequestQueryCounter requestQueryCounter;
+    private final Integer leaderboardSize;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory, RequestQueryCounter requestQueryCounter,
+                                       @Value("${library.properties.hibernateStatistics.leaderboardSize}") Integer leaderboardSize) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.requestQueryCounter = requestQueryCounter;
+        this.leaderboardSize = leaderboardSize;
+    }
+
+    @ReadOperation
+    public HibernateStatisticsDto statistics() {
+        List<QueryStatisticsDto> queries = Arrays.stream(statistics.getQueries())
+                .map(query -> queryStatistics(query, statistics.getQueryStatistics(query)))
+                .sorted(Comparator.comparingLong(QueryStatisticsDto::totalTimeInMillis).reversed())
+                .limit(leaderboardSize).toList();
+        String slowestQuery = statistics.getQueryExecutionMaxTimeQueryString();
+        return new HibernateStatisticsDto(statistics.isStatisticsEnabled(), statistics.getQueryExecutionCount(),
+                statistics.getEntityLoadCount(), statistics.getEntityFetchCount(), statistics.getCollectionLoadCount(),
+                statistics.getCollectionFetchCount(), statistics.getPrepareStatementCount(),
+                slowestQuery == null ? null : redact(slowestQuery), statistics.getQueryExecutionMaxTime(),
+                queries, requestQueryCounter.routeTotals());
+    }
+
+    private static QueryStatisticsDto queryStatistics(String query, QueryStatistics queryStatistics) {
+        return new QueryStatisticsDto(redact(query), queryStatistics.getExecutionCount(), queryStatistics.getExecutionTotalTime(),
+                queryStatistics.getExecutionAvgTime(), queryStatistics.getExecutionMaxTime(), queryStatistics.getExecutionRowCount());
+    }
+}
@@ -0,0 +1,93 @@
+package dev.banji.LibReserve.config.hibernate;
+
+import dev.banji.LibReserve.model.dtos.HibernateStatisticsDto.RequestLoadDto;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the entities loaded, collections fetched and statements prepared on the request thread, and totals them per
+ * route. Work on threads without an open request, such as the scheduled jobs, is not counted.
+ */
+@Component
+public class RequestQueryCounter implements StatementInspector, PostLoadEventListener, InitializeCollectionEventListener {
+    private final ThreadLocal<RequestCounts> currentRequest = new ThreadLocal<>();
+    private final Map<String, RouteTotals> routeTotals = new ConcurrentHashMap<>();
+
+    public void start() {
+        currentRequest.set(new RequestCounts());
+    }
+
+    /**
+     * @param route the matched handler pattern, so the number of routes stays bounded.
+     */
+    public void finish(String route) {
+        RequestCounts counts = currentRequest.get();
+        currentRequest.remove();
+        if (counts != null) routeTotals.computeIfAbsent(route, ignored -> new RouteTotals()).add(counts);
+    }
+
+    public List<RequestLoadDto> routeTotals() {
+        return routeTotals.entrySet().stream().map(entry -> entry.getValue().toDto(entry.getKey()))
+                .sorted(Comparator.comparingDouble(RequestLoadDto::meanStatements).reversed()).toList();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        RequestCounts counts = currentRequest.get();
+        if (counts != null) counts.statements++;
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        RequestCounts counts = currentRequest.get();
+        if (counts != null) counts.entityLoads++;
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        RequestCounts counts = currentRequest.get();
+        if (counts != null) counts.collectionFetches++;
+    }
+
+    private static final class RequestCounts {
+        private long entityLoads;
+        private long collectionFetches;
+        private long statements;
+    }
+
+    private static final class RouteTotals {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder entityLoads = new LongAdder();
+        private final LongAdder collectionFetches = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator maximumEntityLoads = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maximumStatements = new LongAccumulator(Math::max, 0);
+
+        private void add(RequestCounts counts) {
+            requests.increment();
+            entityLoads.add(counts.entityLoads);
+            collectionFetches.add(counts.collectionFetches);
+            statements.add(counts.statements);
+            maximumEntityLoads.accumulate(counts.entityLoads);
+            maximumStatements.accumulate(counts.statements);
+        }
+
+        private RequestLoadDto toDto(String route) {
+            double numberOfRequests = Math.max(1, requests.sum());
+            return new RequestLoadDto(route, requests.sum(), entityLoads.sum() / numberOfRequests, maximumEntityLoads.get(),
+                    collectionFetches.sum() / numberOfRequests, statements.sum() / numberOfRequests, maximumStatements.get());
+        }
+    }
+}
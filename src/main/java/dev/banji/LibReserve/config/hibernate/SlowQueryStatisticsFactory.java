@@ -0,0 +1,41 @@
+package dev.banji.LibReserve.config.hibernate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+import java.util.regex.Pattern;
+
+/**
+ * Builds Hibernate's own statistics, extended to log every query slower than the threshold. Literals are redacted
+ * before logging, so a slow query never writes reservation codes or matric numbers to the log.
+ */
+@Slf4j
+public class SlowQueryStatisticsFactory implements StatisticsFactory {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.$])\\d+(?:\\.\\d+)?(?!\\w)");
+    private final long slowQueryThresholdInMillis;
+
+    public SlowQueryStatisticsFactory(long slowQueryThresholdInMillis) {
+        this.slowQueryThresholdInMillis = slowQueryThresholdInMillis;
+    }
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new StatisticsImpl(sessionFactory) {
+            @Override
+            public void queryExecuted(String query, int rows, long timeInMillis) {
+                super.queryExecuted(query, rows, timeInMillis);
+                if (timeInMillis >= slowQueryThresholdInMillis)
+                    log.warn("Slow query, {} ms and {} rows: {}", timeInMillis, rows, redact(query));
+            }
+        };
+    }
+
+    public static String redact(String query) {
+        String redacted = STRING_LITERAL.matcher(query).replaceAll("'?'");
+        return NUMERIC_LITERAL.matcher(redacted).replaceAll("?");
+    }
+}
@@ -0,0 +1,118 @@
+package dev.banji.LibReserve.config.interceptors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounds the number of messages queued for each WebSocket session on the client outbound channel.
+ * Once a session has more than the allowed number of messages waiting, the oldest queued message for a non-critical
+ * destination is skipped when its turn comes. Critical messages, such as personal notifications, are never skipped;
+ * a session that keeps falling behind is eventually closed by the send buffer and send time limits.
+ */
+@Component
+public class OutboundBackpressureInterceptor implements ExecutorChannelInterceptor {
+    private final Map<String, SessionQueue> sessionQueues = new ConcurrentHashMap<>();
+    private final Set<String> nonCriticalDestinations;
+    private final int maximumQueuedPerSession;
+    private final DistributionSummary queueDepth;
+    private final Counter droppedCounter;
+
+    public OutboundBackpressureInterceptor(MeterRegistry meterRegistry,
+                                           @Value("${library.properties.webSocket.maximumQueuedPerSession}") Integer maximumQueuedPerSession,
+                                           @Value("${library.properties.webSocket.nonCriticalDestinations}") Set<String> nonCriticalDestinations) {
+        this.maximumQueuedPerSession = maximumQueuedPerSession;
+        this.nonCriticalDestinations = Set.copyOf(nonCriticalDestinations);
+        this.queueDepth = DistributionSummary.builder("libreserve.websocket.session.queue.depth").description("Outbound messages waiting for a session when another one is queued").publishPercentileHistogram().register(meterRegistry);
+        this.droppedCounter = Counter.builder("libreserve.websocket.messages.dropped").description("Non-critical messages skipped for a slow session").register(meterRegistry);
+        Gauge.builder("libreserve.websocket.session.queue.depth.deepest", sessionQueues, queues -> queues.values().stream().mapToInt(SessionQueue::depth).max().orElse(0)).register(meterRegistry);
+        Gauge.builder("libreserve.websocket.sessions", sessionQueues, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        UUID messageId = message.getHeaders().getId();
+        if (sessionId == null || messageId == null) return message;
+        SessionQueue sessionQueue = sessionQueues.computeIfAbsent(sessionId, id -> new SessionQueue());
+        queueDepth.record(sessionQueue.enqueue(messageId, isNonCritical(message)));
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception exception) {
+        if (!sent) release(message); //rejected by the executor, it will never be handled.
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (release(message)) return message;
+        droppedCounter.increment();
+        return null; //skips the handler, the message is never written to the session.
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception exception) {
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent disconnectEvent) {
+        sessionQueues.remove(disconnectEvent.getSessionId());
+    }
+
+    /**
+     * @return false if the message was dropped while it was queued.
+     */
+    private boolean release(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        UUID messageId = message.getHeaders().getId();
+        if (sessionId == null || messageId == null) return true;
+        SessionQueue sessionQueue = sessionQueues.get(sessionId);
+        return sessionQueue == null || sessionQueue.release(messageId);
+    }
+
+    private boolean isNonCritical(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        return destination != null && nonCriticalDestinations.contains(destination);
+    }
+
+    private final class SessionQueue {
+        private final Set<UUID> queued = new HashSet<>();
+        private final ArrayDeque<UUID> queuedNonCritical = new ArrayDeque<>();
+        private final Set<UUID> dropped = new HashSet<>();
+
+        private synchronized int enqueue(UUID messageId, boolean nonCritical) {
+            queued.add(messageId);
+            if (nonCritical) queuedNonCritical.addLast(messageId);
+            while (queued.size() > maximumQueuedPerSession && !queuedNonCritical.isEmpty()) { //drop oldest
+                UUID oldest = queuedNonCritical.removeFirst();
+                queued.remove(oldest);
+                dropped.add(oldest);
+            }
+            return queued.size();
+        }
+
+        private synchronized boolean release(UUID messageId) {
+            if (dropped.remove(messageId)) return false;
+            if (queued.remove(messageId)) queuedNonCritical.remove(messageId);
+            return true;
+        }
+
+        private synchronized int depth() {
+            return queued.size();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.banji.LibReserve.config.observation;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Wraps a phase of a request in an observation, which shows up as a span under the request in the recent traces and
+ * as a libreserve.phase timer tagged with the phase.
+ */
+@Component
+@RequiredArgsConstructor
+public class PhaseTracer {
+    private final ObservationRegistry observationRegistry;
+
+    public <T> T trace(String phase, Supplier<T> action) {
+        return observation(phase).observe(action);
+    }
+
+    public void trace(String phase, Runnable action) {
+        observation(phase).observe(action);
+    }
+
+    private Observation observation(String phase) {
+        return Observation.createNotStarted("libreserve.phase", observationRegistry).contextualName(phase).lowCardinalityKeyValue("phase", phase);
+    }
+}
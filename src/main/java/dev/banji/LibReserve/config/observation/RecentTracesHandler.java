@@ -0,0 +1,118 @@
+package dev.banji.LibReserve.config.observation;
+
+import dev.banji.LibReserve.model.dtos.TraceDto;
+import dev.banji.LibReserve.model.dtos.TraceDto.SpanDto;
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * A local, in-memory span exporter. Observations that start while another one is open on the same thread become its
+ * children, so the HTTP server observation ends up as the root of everything a request does. Finished traces slower
+ * than the threshold are kept, newest first, up to the configured number.
+ */
+@Component
+public class RecentTracesHandler implements ObservationHandler<Observation.Context> {
+    private final ThreadLocal<Deque<SpanRecord>> openSpans = ThreadLocal.withInitial(ArrayDeque::new);
+    private final Deque<TraceDto> slowTraces = new ArrayDeque<>();
+    private final long slowThresholdInNanos;
+    private final int retainedTraces;
+    private final int maximumSpansPerTrace;
+
+    public RecentTracesHandler(@Value("${library.properties.tracing.slowThresholdInMillis}") Long slowThresholdInMillis,
+                               @Value("${library.properties.tracing.retainedTraces}") Integer retainedTraces,
+                               @Value("${library.properties.tracing.maximumSpansPerTrace}") Integer maximumSpansPerTrace) {
+        this.slowThresholdInNanos = slowThresholdInMillis * 1_000_000;
+        this.retainedTraces = retainedTraces;
+        this.maximumSpansPerTrace = maximumSpansPerTrace;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        Deque<SpanRecord> stack = openSpans.get();
+        while (!stack.isEmpty() && stack.peekLast().endNanos != 0) stack.pollLast(); //stopped on another thread.
+        SpanRecord parent = stack.peekLast();
+        var span = new SpanRecord(parent == null ? new TraceRecord() : parent.trace, parent, parent == null ? 0 : parent.depth + 1);
+        span.trace.add(span, maximumSpansPerTrace);
+        stack.addLast(span);
+        context.put(SpanRecord.class, span);
+    }
+
+    @Override
+    public void onError(Observation.Context context) {
+        SpanRecord span = context.get(SpanRecord.class);
+        if (span != null && context.getError() != null) span.error = context.getError().getClass().getSimpleName();
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        SpanRecord span = context.get(SpanRecord.class);
+        if (span == null) return;
+        span.endNanos = System.nanoTime();
+        span.name = context.getContextualName() != null ? context.getContextualName() : context.getName();
+        for (KeyValue keyValue : context.getLowCardinalityKeyValues()) span.tags.put(keyValue.getKey(), keyValue.getValue());
+        openSpans.get().removeLastOccurrence(span);
+        if (span.parent == null && span.endNanos - span.startNanos >= slowThresholdInNanos) retain(span.trace.toDto(span));
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return true;
+    }
+
+    public List<TraceDto> recentSlowTraces() {
+        synchronized (slowTraces) {
+            return List.copyOf(slowTraces);
+        }
+    }
+
+    private void retain(TraceDto trace) {
+        synchronized (slowTraces) {
+            slowTraces.addFirst(trace);
+            while (slowTraces.size() > retainedTraces) slowTraces.pollLast();
+        }
+    }
+
+    private static final class TraceRecord {
+        private final Instant startedAt = Instant.now();
+        private final List<SpanRecord> spans = new ArrayList<>();
+        private int droppedSpans;
+
+        private synchronized void add(SpanRecord span, int maximumSpans) {
+            if (spans.size() < maximumSpans) spans.add(span);
+            else droppedSpans++;
+        }
+
+        private synchronized TraceDto toDto(SpanRecord root) {
+            List<SpanDto> spanDtos = spans.stream().filter(span -> span.endNanos != 0).map(span -> new SpanDto(span.name, span.depth,
+                    millis(span.startNanos - root.startNanos), millis(span.endNanos - span.startNanos), span.error, Map.copyOf(span.tags))).toList();
+            return new TraceDto(root.name, startedAt, millis(root.endNanos - root.startNanos), droppedSpans, spanDtos);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    private static final class SpanRecord {
+        private final TraceRecord trace;
+        private final SpanRecord parent;
+        private final int depth;
+        private final long startNanos = System.nanoTime();
+        private final Map<String, String> tags = new LinkedHashMap<>();
+        private volatile long endNanos;
+        private String name;
+        private String error;
+
+        private SpanRecord(TraceRecord trace, SpanRecord parent, int depth) {
+            this.trace = trace;
+            this.parent = parent;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package dev.banji.LibReserve.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@ConfigurationProperties(prefix = "library.properties.throttling")
+@Getter
+@Setter
+public final class ThrottlingConfigurationProperties {
+    private Boolean enabled;
+    private Integer bucketsPerRouteGroup; //rounded up to a power of two, subjects hashing to the same bucket share it.
+    private List<RouteGroup> routeGroups;
+
+    /**
+     * @param pathPrefixes    the request paths the group applies to, the first matching group wins.
+     * @param capacity        the burst a subject may send at once.
+     * @param refillPerSecond the sustained rate a subject may send at.
+     */
+    public record RouteGroup(String name, List<String> pathPrefixes, Long capacity, Double refillPerSecond) {
+    }
+}
@@ -0,0 +1,105 @@
+package dev.banji.LibReserve.config.templates;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A notification template compiled into literal segments and typed slots. A slot is written as {@code {name:type}},
+ * where the name has to be one of the slots declared for the template and the type has to match its declaration;
+ * {@code {{} and {@code }}} stand for literal braces. Rendering only appends to a per-thread buffer, the template is
+ * never parsed again.
+ */
+public final class NotificationTemplate {
+    private static final ThreadLocal<StringBuilder> RENDER_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private final String[] literals; //always one more literal than there are slots, possibly empty.
+    private final Slot[] slots;
+    private final int[] argumentIndexes; //the position of each slot's value in the render arguments.
+    private final int declaredSlotCount;
+
+    private NotificationTemplate(List<String> literals, List<Slot> slots, List<Integer> argumentIndexes, int declaredSlotCount) {
+        this.literals = literals.toArray(String[]::new);
+        this.slots = slots.toArray(Slot[]::new);
+        this.argumentIndexes = argumentIndexes.stream().mapToInt(Integer::intValue).toArray();
+        this.declaredSlotCount = declaredSlotCount;
+    }
+
+    /**
+     * @param name          the property the template was read from, used in error messages.
+     * @param declaredSlots the slots the template may use, in the order their values are passed to {@link #render}.
+     * @throws IllegalArgumentException if the template is missing, malformed or uses an undeclared or mistyped slot.
+     */
+    public static NotificationTemplate compile(String name, String source, List<Slot> declaredSlots) {
+        if (source == null || source.isBlank())
+            throw new IllegalArgumentException("Notification template '" + name + "' is missing");
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        List<Integer> argumentIndexes = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        for (int i = 0; i < source.length(); i++) {
+            char current = source.charAt(i);
+            char next = i + 1 < source.length() ? source.charAt(i + 1) : 0;
+            if ((current == '{' || current == '}') && next == current) { //escaped brace
+                literal.append(current);
+                i++;
+            } else if (current == '}') {
+                throw malformed(name, source, i, "unmatched '}'");
+            } else if (current == '{') {
+                int end = source.indexOf('}', i);
+                if (end < 0) throw malformed(name, source, i, "unclosed '{'");
+                String[] slotDefinition = source.substring(i + 1, end).split(":", -1);
+                if (slotDefinition.length != 2) throw malformed(name, source, i, "expected {name:type}");
+                Slot slot = new Slot(slotDefinition[0].trim(), SlotType.parse(slotDefinition[1].trim()));
+                if (slot.type() == null) throw malformed(name, source, i, "unknown slot type '" + slotDefinition[1].trim() + "'");
+                int argumentIndex = declaredSlots.indexOf(slot);
+                if (argumentIndex < 0) throw malformed(name, source, i, "slot " + slot + " is not one of " + declaredSlots);
+                literals.add(literal.toString());
+                literal.setLength(0);
+                slots.add(slot);
+                argumentIndexes.add(argumentIndex);
+                i = end;
+            } else literal.append(current);
+        }
+        literals.add(literal.toString());
+        return new NotificationTemplate(literals, slots, argumentIndexes, declaredSlots.size());
+    }
+
+    /**
+     * @param arguments one value per declared slot, in declaration order.
+     */
+    public String render(Object... arguments) {
+        if (arguments.length != declaredSlotCount)
+            throw new IllegalArgumentException("Expected " + declaredSlotCount + " template arguments but got " + arguments.length);
+        StringBuilder buffer = RENDER_BUFFER.get();
+        buffer.setLength(0);
+        buffer.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            Object argument = arguments[argumentIndexes[i]];
+            if (slots[i].type() == SlotType.NUMBER && !(argument instanceof Number))
+                throw new IllegalArgumentException("Slot " + slots[i] + " expects a number but got " + argument);
+            buffer.append(argument).append(literals[i + 1]);
+        }
+        return buffer.toString();
+    }
+
+    private static IllegalArgumentException malformed(String name, String source, int position, String problem) {
+        return new IllegalArgumentException("Notification template '" + name + "' is malformed at position " + position + ", " + problem + ": " + source);
+    }
+
+    public enum SlotType {
+        TEXT, NUMBER;
+
+        private static SlotType parse(String type) {
+            for (SlotType slotType : values())
+                if (slotType.name().equalsIgnoreCase(type)) return slotType;
+            return null;
+        }
+    }
+
+    public record Slot(String name, SlotType type) {
+        @Override
+        public String toString() {
+            return "{" + name + ":" + type.name().toLowerCase() + "}";
+        }
+    }
+}
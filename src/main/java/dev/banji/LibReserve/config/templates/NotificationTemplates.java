@@ -0,0 +1,94 @@
+package dev.banji.LibReserve.config.templates;
+
+import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
+import dev.banji.LibReserve.config.templates.NotificationTemplate.Slot;
+import dev.banji.LibReserve.model.dtos.NotificationsConfig;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static dev.banji.LibReserve.config.templates.NotificationTemplate.SlotType.NUMBER;
+import static dev.banji.LibReserve.config.templates.NotificationTemplate.SlotType.TEXT;
+
+/**
+ * The student notification templates, compiled once while the context starts. A missing or malformed template
+ * stops the application from booting instead of surfacing the first time the notification is sent.
+ */
+@Component
+public class NotificationTemplates {
+    public static final Slot REMAINING_TIME_IN_MINUTES = new Slot("remainingTimeInMinutes", NUMBER);
+    public static final Slot CLAIM_WINDOW_IN_MINUTES = new Slot("claimWindowInMinutes", NUMBER);
+    public static final Slot RESERVATION_CODE = new Slot("reservationCode", TEXT);
+    public static final Slot SEAT_NUMBER = new Slot("seatNumber", NUMBER);
+    private final CompiledNotification timeUp;
+    private final CompiledNotification timeAlmostUp;
+    private final CompiledNotification blackList;
+    private final CompiledNotification studentBlackList;
+    private final CompiledNotification studentKickedOut;
+    private final CompiledNotification seatOffer;
+    private final CompiledNotification lotteryWon;
+    private final CompiledNotification lotteryLost;
+
+    public NotificationTemplates(LibraryConfigurationProperties libraryConfigurationProperties) {
+        NotificationsConfig config = libraryConfigurationProperties.getSendStudentNotifications();
+        try {
+            timeUp = compile("timeUpNotification", config.timeUpNotificationSubject(), config.timeUpNotificationBody());
+            timeAlmostUp = compile("timeAlmostUpNotification", config.timeAlmostUpNotificationSubject(), config.timeAlmostUpNotificationBody(), REMAINING_TIME_IN_MINUTES);
+            blackList = compile("blackListNotification", config.blackListNotificationSubject(), config.blackListNotificationBody());
+            studentBlackList = compile("studentBlackListNotification", config.studentBlackListNotificationSubject(), config.studentBlackListNotificationBody());
+            studentKickedOut = compile("studentKickedOutNotification", config.studentKickedOutNotificationSubject(), config.studentKickedOutNotificationBody());
+            seatOffer = compile("seatOfferNotification", config.seatOfferNotificationSubject(), config.seatOfferNotificationBody(), CLAIM_WINDOW_IN_MINUTES);
+            lotteryWon = compile("lotteryWonNotification", config.lotteryWonNotificationSubject(), config.lotteryWonNotificationBody(), RESERVATION_CODE, SEAT_NUMBER);
+            lotteryLost = compile("lotteryLostNotification", config.lotteryLostNotificationSubject(), config.lotteryLostNotificationBody());
+        } catch (IllegalArgumentException invalidTemplate) {
+            throw new BeanInitializationException("Invalid library.properties.sendStudentNotifications: " + invalidTemplate.getMessage(), invalidTemplate);
+        }
+    }
+
+    public RenderedNotification timeUp() {
+        return timeUp.render();
+    }
+
+    public RenderedNotification timeAlmostUp(long remainingTimeInMinutes) {
+        return timeAlmostUp.render(remainingTimeInMinutes);
+    }
+
+    public RenderedNotification blackList() {
+        return blackList.render();
+    }
+
+    public RenderedNotification studentBlackList() {
+        return studentBlackList.render();
+    }
+
+    public RenderedNotification studentKickedOut() {
+        return studentKickedOut.render();
+    }
+
+    public RenderedNotification seatOffer(long claimWindowInMinutes) {
+        return seatOffer.render(claimWindowInMinutes);
+    }
+
+    public RenderedNotification lotteryWon(String reservationCode, long seatNumber) {
+        return lotteryWon.render(reservationCode, seatNumber);
+    }
+
+    public RenderedNotification lotteryLost() {
+        return lotteryLost.render();
+    }
+
+    private static CompiledNotification compile(String name, String subject, String body, Slot... declaredSlots) {
+        return new CompiledNotification(NotificationTemplate.compile(name + "Subject", subject, List.of(declaredSlots)),
+                NotificationTemplate.compile(name + "Body", body, List.of(declaredSlots)));
+    }
+
+    private record CompiledNotification(NotificationTemplate subject, NotificationTemplate body) {
+        private RenderedNotification render(Object... arguments) {
+            return new RenderedNotification(subject.render(arguments), body.render(arguments));
+        }
+    }
+
+    public record RenderedNotification(String subject, String body) {
+    }
+}
@@ -0,0 +1,38 @@
+package dev.banji.LibReserve.controller;
+
+import dev.banji.LibReserve.model.dtos.LockDiagnosticsDto;
+import dev.banji.LibReserve.model.dtos.TraceDto;
+import dev.banji.LibReserve.service.DiagnosticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static org.springframework.http.HttpStatus.OK;
+
+@RestController
+@RequestMapping("api/lib-reserve/librarian/diagnostics")
+@RequiredArgsConstructor
+@ResponseStatus(OK)
+public class DiagnosticsController {
+    private final DiagnosticsService diagnosticsService;
+
+    @GetMapping("/occupancy-lock")
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')") //secured with oauth2
+    public LockDiagnosticsDto fetchOccupancyLockDiagnostics() {
+        return diagnosticsService.occupancyLockDiagnostics();
+    }
+
+    /**
+     * The most recent requests slower than the configured threshold, newest first, with their spans.
+     */
+    @GetMapping("/traces")
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')") //secured with oauth2
+    public List<TraceDto> fetchRecentSlowTraces() {
+        return diagnosticsService.recentSlowTraces();
+    }
+}
@@ -0,0 +1,43 @@
+package dev.banji.LibReserve.controller;
+
+import dev.banji.LibReserve.service.ReservationExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE;
+
+@RestController
+@RequestMapping("api/lib-reserve/librarian/export")
+@RequiredArgsConstructor
+public class ExportController {
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+    private static final MediaType APPLICATION_GZIP = new MediaType("application", "gzip");
+    private final ReservationExportService reservationExportService;
+
+    /**
+     * Streams every student reservation made for the date range as CSV, as a .csv.gz download when gzip is set.
+     */
+    @GetMapping("/reservations")
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')") //secured with oauth2
+    public ResponseEntity<StreamingResponseBody> exportReservations(@RequestParam @DateTimeFormat(iso = DATE) LocalDate from,
+                                                                    @RequestParam @DateTimeFormat(iso = DATE) LocalDate to,
+                                                                    @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = reservationExportService.reservationCsv(from, to, gzip);
+        String filename = "reservations-" + from + "-to-" + to + (gzip ? ".csv.gz" : ".csv");
+        return ResponseEntity.ok().contentType(gzip ? APPLICATION_GZIP : TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
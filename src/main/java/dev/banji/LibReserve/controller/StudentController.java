@@ -1,18 +1,35 @@
 package dev.banji.LibReserve.controller;
 
+import dev.banji.LibReserve.model.dtos.AvailabilityDto;
+import dev.banji.LibReserve.model.dtos.BatchReservationDto;
+import dev.banji.LibReserve.model.dtos.BatchReservationDto.ProposedSlotDto;
+import dev.banji.LibReserve.model.dtos.BatchReservationDto.ReservedSlotDto;
+import dev.banji.LibReserve.model.dtos.LotteryEntryDto;
 import dev.banji.LibReserve.model.dtos.StudentReservationDto;
+import dev.banji.LibReserve.model.dtos.WaitlistStatusDto;
 import dev.banji.LibReserve.model.enums.ReservationStatus;
+import dev.banji.LibReserve.service.AvailabilityService;
+import dev.banji.LibReserve.service.BookingAdmissionService;
+import dev.banji.LibReserve.service.LotteryService;
 import dev.banji.LibReserve.service.StudentService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE;
+import static org.springframework.format.annotation.DateTimeFormat.ISO.TIME;
 import static org.springframework.http.HttpStatus.OK;
 
 @RestController
@@ -21,81 +38,132 @@ import static org.springframework.http.HttpStatus.OK;
 @RequestMapping("api/lib-reserve/student")
 public class StudentController {
     private final StudentService studentService;
+    private final AvailabilityService availabilityService;
+    private final BookingAdmissionService bookingAdmissionService;
+    private final LotteryService lotteryService;
+
+    /**
+     * Served from memory. The ETag carries the version of the day, so clients can poll with If-None-Match and get a 304 until a booking for that day changes.
+     */
+    @GetMapping("/availability")
+    @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
+    public ResponseEntity<AvailabilityDto> fetchAvailability(@RequestParam @DateTimeFormat(iso = DATE) LocalDate date,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = TIME) LocalTime from,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = TIME) LocalTime to, WebRequest webRequest) {
+        AvailabilityDto availability = availabilityService.availability(date, from == null ? LocalTime.MIN : from, to == null ? LocalTime.MAX : to);
+        String eTag = "\"" + date + "-" + availability.version() + "\"";
+        if (webRequest.checkNotModified(eTag)) return null;
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache().cachePrivate()).body(availability);
+    }
 
     @GetMapping("/reservation/last")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public StudentReservationDto getLastReservation(Authentication authentication) {
-        return studentService.retrieveLastReservation((String) authentication.getPrincipal());
+        return studentService.retrieveLastReservation(authentication.getName());
     }
 
 
     @GetMapping("/reservation/{status}")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public List<StudentReservationDto> fetchReservationsBasedOnStatus(@PathVariable ReservationStatus status, Authentication authentication) {
-        return studentService.fetchReservationsByStatus((String) authentication.getPrincipal(), status);
+        return studentService.fetchReservationsByStatus(authentication.getName(), status);
     }
 
     @GetMapping("/reservation/all")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public List<StudentReservationDto> fetchAllReservations(Authentication authentication) {
-        return studentService.fetchAllReservations((String) authentication.getPrincipal());
+        return studentService.fetchAllReservations(authentication.getName());
     }
 
     @PostMapping("/reservation/today/now")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public String walkInRequest(JwtAuthenticationToken authentication, @RequestBody Duration duration) {
-        return studentService.handleWalkInRequest((String) authentication.getPrincipal(), duration);
+        return studentService.handleWalkInRequest(authentication.getName(), duration);
     }
 
     @PostMapping("/reservation/today")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public String reserveForLaterToday(JwtAuthenticationToken authentication, @RequestBody LocalDateTime proposedDateAndTIme, @RequestBody Duration duration) {
-        return studentService.reserveForTodayRequest((String) authentication.getPrincipal(), proposedDateAndTIme, duration);
+        return studentService.reserveForTodayRequest(authentication.getName(), proposedDateAndTIme, duration);
     }
 
     @PostMapping("/reservation/advance")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public String bookReservationsInAdvance(JwtAuthenticationToken authentication, @RequestBody LocalDateTime proposedDateAndTIme, @RequestBody Duration duration) {
-        return studentService.handleAdvancedRequest((String) authentication.getPrincipal(), proposedDateAndTIme, duration);
+        return studentService.handleAdvancedRequest(authentication.getName(), proposedDateAndTIme, duration);
+    }
+
+    @PostMapping("/reservation/advance/batch")
+    @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
+    public List<ReservedSlotDto> bookBatchReservationsInAdvance(JwtAuthenticationToken authentication, @RequestBody BatchReservationDto batchReservation) {
+        //admitted here rather than in the service, so the transaction only starts once the batch has been admitted.
+        return bookingAdmissionService.admit(() -> studentService.handleBatchAdvancedRequest(authentication.getName(), batchReservation.slots()));
+    }
+
+    /**
+     * Enters the slot into the next lottery draw. The outcome is sent as a notification once the draw has run.
+     */
+    @PostMapping("/reservation/lottery")
+    @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
+    public LotteryEntryDto enterLottery(JwtAuthenticationToken authentication, @RequestBody ProposedSlotDto proposedSlot) {
+        return lotteryService.enter(authentication.getName(), proposedSlot);
     }
 
     @PostMapping("/reservation/extension")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public Boolean reservationExtension(JwtAuthenticationToken authentication, @RequestBody Duration duration) {
-        return studentService.requestForExtension((String) authentication.getPrincipal(), duration);
+        return studentService.requestForExtension(authentication.getName(), duration);
+    }
+
+    @PostMapping("/waitlist")
+    @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
+    public WaitlistStatusDto joinWaitlist(Authentication authentication) {
+        return studentService.joinWaitlist(authentication.getName());
+    }
+
+    @GetMapping("/waitlist")
+    @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
+    public WaitlistStatusDto fetchWaitlistStatus(Authentication authentication) {
+        return studentService.fetchWaitlistStatus(authentication.getName());
+    }
+
+    @DeleteMapping("/waitlist")
+    @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
+    public boolean leaveWaitlist(Authentication authentication) {
+        return studentService.leaveWaitlist(authentication.getName());
     }
 
     @PostMapping("/logout")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public boolean logout(JwtAuthenticationToken authentication) {
-        return studentService.studentLogout(authentication.getToken(), (String) authentication.getPrincipal());
+        return studentService.studentLogout(authentication.getToken(), authentication.getName());
     }
 
     @PostMapping("/reservation/cancel")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public boolean cancelLastReservation(Authentication authentication) {
-        String matricNumber = (String) authentication.getPrincipal();
+        String matricNumber = authentication.getName();
         return studentService.cancelLastReservation(matricNumber);
     }
 
     @PostMapping("/reservation/cancel/{reservationCode}")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public boolean cancelReservationByCode(Authentication authentication, @PathVariable String reservationCode) { //this cancels a reservation booked by the student using the reservation code.
-        String matricNumber = (String) authentication.getPrincipal();
+        String matricNumber = authentication.getName();
         return studentService.cancelReservationByCode(reservationCode, matricNumber);
     }
 
     @PostMapping("/reservations/cancel")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public boolean cancelReservationsByCode(Authentication authentication, List<String> reservationCodesList) { //this cancels a reservation booked by the student using the reservation code.
-        String matricNumber = (String) authentication.getPrincipal();
+        String matricNumber = authentication.getName();
         return studentService.cancelReservationsByCode(matricNumber, reservationCodesList);
     }
 
     @PostMapping("/reservations/cancel/all")
     @PreAuthorize("hasAuthority('SCOPE_STUDENT')")
     public boolean cancelAllReservations(Authentication authentication) { //cancels all the reservations made by student.
-        String matricNumber = (String) authentication.getPrincipal();
+        String matricNumber = authentication.getName();
         return studentService.cancelAllReservations(matricNumber);
     }
 
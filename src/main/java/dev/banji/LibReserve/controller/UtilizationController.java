@@ -0,0 +1,59 @@
+package dev.banji.LibReserve.controller;
+
+import dev.banji.LibReserve.model.dtos.DailyUtilizationDto;
+import dev.banji.LibReserve.model.dtos.FacultyUtilizationDto;
+import dev.banji.LibReserve.model.dtos.HourlyUtilizationDto;
+import dev.banji.LibReserve.model.dtos.UtilizationRebuildDto;
+import dev.banji.LibReserve.service.UtilizationRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.springframework.format.annotation.DateTimeFormat.ISO.DATE;
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * Seat utilization reports, read from the hourly rollups only.
+ */
+@RestController
+@RequestMapping("api/lib-reserve/librarian/utilization")
+@RequiredArgsConstructor
+@ResponseStatus(OK)
+public class UtilizationController {
+    private final UtilizationRollupService utilizationRollupService;
+
+    @GetMapping("/hourly")
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')") //secured with oauth2
+    public List<HourlyUtilizationDto> fetchHourlyUtilization(@RequestParam @DateTimeFormat(iso = DATE) LocalDate from,
+                                                             @RequestParam @DateTimeFormat(iso = DATE) LocalDate to) {
+        return utilizationRollupService.hourlyUtilization(from, to);
+    }
+
+    @GetMapping("/daily")
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')") //secured with oauth2
+    public List<DailyUtilizationDto> fetchDailyUtilization(@RequestParam @DateTimeFormat(iso = DATE) LocalDate from,
+                                                           @RequestParam @DateTimeFormat(iso = DATE) LocalDate to) {
+        return utilizationRollupService.dailyUtilization(from, to);
+    }
+
+    @GetMapping("/faculty")
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')") //secured with oauth2
+    public List<FacultyUtilizationDto> fetchFacultyUtilization(@RequestParam @DateTimeFormat(iso = DATE) LocalDate from,
+                                                               @RequestParam @DateTimeFormat(iso = DATE) LocalDate to) {
+        return utilizationRollupService.facultyUtilization(from, to);
+    }
+
+    /**
+     * Recomputes the rollups of the range from the reservations, e.g. to backfill history recorded before the rollups.
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')") //secured with oauth2
+    public UtilizationRebuildDto rebuildUtilization(@RequestParam @DateTimeFormat(iso = DATE) LocalDate from,
+                                                    @RequestParam @DateTimeFormat(iso = DATE) LocalDate to) {
+        return utilizationRollupService.rebuild(from, to);
+    }
+}
@@ -1,12 +1,18 @@
 package dev.banji.LibReserve.controller.advice;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import dev.banji.LibReserve.exceptions.BatchReservationException;
+import dev.banji.LibReserve.exceptions.BookingOverloadedException;
+import dev.banji.LibReserve.exceptions.InvalidRefreshTokenException;
 import dev.banji.LibReserve.exceptions.LibraryRuntimeException;
 import dev.banji.LibReserve.exceptions.SeatNumberNotWithinRangeException;
 import dev.banji.LibReserve.exceptions.UserNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -34,6 +40,32 @@ public class ApplicationControllerAdvice {
         return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, seatNumberNotWithinRangeException.getMessage());
     }
 
+    @ExceptionHandler
+    ProblemDetail invalidRefreshTokenException(InvalidRefreshTokenException invalidRefreshTokenException) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.UNAUTHORIZED, invalidRefreshTokenException.getMessage());
+    }
+
+    @ExceptionHandler
+    ProblemDetail batchReservationException(BatchReservationException batchReservationException) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, batchReservationException.getMessage());
+        problemDetail.setProperty("slotIndex", batchReservationException.getSlotIndex());
+        return problemDetail;
+    }
+
+    @ExceptionHandler
+    ResponseEntity<ProblemDetail> bookingOverloadedException(BookingOverloadedException bookingOverloadedException) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, bookingOverloadedException.getMessage());
+        problemDetail.setProperty("queuePosition", bookingOverloadedException.getQueuePosition());
+        problemDetail.setProperty("estimatedWaitInMillis", bookingOverloadedException.getEstimatedWait().toMillis());
+        long retryAfterInSeconds = Math.max(1, bookingOverloadedException.getEstimatedWait().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterInSeconds)).body(problemDetail);
+    }
+
+    @ExceptionHandler
+    ProblemDetail objectOptimisticLockingFailureException(ObjectOptimisticLockingFailureException optimisticLockingFailureException) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "Error: The resource was modified by a concurrent request. Please retry.");
+    }
+
     @ExceptionHandler(JsonProcessingException.class)
     public ProblemDetail jsonProcessingException(JsonProcessingException jsonProcessingException) {
         return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, "Error: Invalid JSON data.");
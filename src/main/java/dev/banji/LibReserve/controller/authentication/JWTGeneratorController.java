@@ -1,11 +1,14 @@
 package dev.banji.LibReserve.controller.authentication;
 
 import dev.banji.LibReserve.config.tokens.LibrarianAuthenticationToken;
+import dev.banji.LibReserve.model.dtos.RefreshTokenRequestDto;
+import dev.banji.LibReserve.model.dtos.TokenPairDto;
 import dev.banji.LibReserve.service.JwtTokenService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,13 +20,18 @@ public class JWTGeneratorController {
 
     @PostMapping("/librarian")
     @PreAuthorize("hasRole('LIBRARIAN')")
-    public String librarianToken(LibrarianAuthenticationToken authentication) {
-        return tokenService.generateAccessToken(authentication);
+    public TokenPairDto librarianToken(LibrarianAuthenticationToken authentication) {
+        return tokenService.generateTokenPair(authentication);
     }
 
     @PostMapping("/student")
     @PreAuthorize("hasRole('STUDENT')")
-    public String studentToken(Authentication authentication) {
-        return tokenService.generateAccessToken(authentication);
+    public TokenPairDto studentToken(Authentication authentication) {
+        return tokenService.generateTokenPair(authentication);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/refresh") //the refresh token is the credential here, so no password check takes place.
+    public TokenPairDto refreshToken(@RequestBody RefreshTokenRequestDto refreshTokenRequest) {
+        return tokenService.refreshAccessToken(refreshTokenRequest.refreshToken());
+    }
+}
@@ -0,0 +1,30 @@
+package dev.banji.LibReserve.controller.messaging;
+
+import dev.banji.LibReserve.model.dtos.SeatMapResyncDto;
+import dev.banji.LibReserve.model.dtos.SeatMapSnapshotDto;
+import dev.banji.LibReserve.service.SeatMapService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Subscribing to "/libReserve/messaging/seat-map" answers once with a snapshot; deltas then arrive on
+ * {@value SeatMapService#SEAT_MAP_TOPIC}. A client that sees a version gap subscribes to
+ * "/libReserve/messaging/seat-map/since/{version}" instead of polling the REST endpoints.
+ */
+@Controller
+@RequiredArgsConstructor
+public class SeatMapController {
+    private final SeatMapService seatMapService;
+
+    @SubscribeMapping("/seat-map")
+    public SeatMapSnapshotDto seatMapSnapshot() {
+        return seatMapService.snapshot();
+    }
+
+    @SubscribeMapping("/seat-map/since/{version}")
+    public SeatMapResyncDto seatMapSince(@DestinationVariable long version) {
+        return seatMapService.resynchronize(version);
+    }
+}
@@ -0,0 +1,19 @@
+package dev.banji.LibReserve.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Rejects a whole batch booking because of one of its slots. Nothing from the batch is persisted.
+ */
+@Getter
+public class BatchReservationException extends LibraryRuntimeException {
+    private final int slotIndex;
+
+    public BatchReservationException(int slotIndex, LocalDateTime proposedDateAndTime, Duration duration, String reason) {
+        super("Slot " + slotIndex + " (" + proposedDateAndTime + " for " + duration.toMinutes() + " minutes) cannot be booked: " + reason);
+        this.slotIndex = slotIndex;
+    }
+}
@@ -0,0 +1,20 @@
+package dev.banji.LibReserve.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of evaluating a booking when the admission queue is full or the wait would take too long.
+ */
+@Getter
+public class BookingOverloadedException extends LibraryRuntimeException {
+    private final int queuePosition;
+    private final Duration estimatedWait;
+
+    public BookingOverloadedException(int queuePosition, Duration estimatedWait) {
+        super("Too many bookings are being processed right now. Please retry in a few seconds.");
+        this.queuePosition = queuePosition;
+        this.estimatedWait = estimatedWait;
+    }
+}
@@ -0,0 +1,7 @@
+package dev.banji.LibReserve.exceptions;
+
+public class DuplicateLotteryEntryException extends LibraryRuntimeException {
+    public DuplicateLotteryEntryException() {
+        super("You have already entered an overlapping slot into the next draw.");
+    }
+}
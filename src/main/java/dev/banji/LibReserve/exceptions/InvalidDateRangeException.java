@@ -0,0 +1,7 @@
+package dev.banji.LibReserve.exceptions;
+
+public class InvalidDateRangeException extends LibraryRuntimeException {
+    public InvalidDateRangeException(long maximumDays) {
+        super("The start date must not be after the end date, and the range must not exceed " + maximumDays + " days.");
+    }
+}
@@ -0,0 +1,11 @@
+package dev.banji.LibReserve.exceptions;
+
+public class InvalidRefreshTokenException extends LibraryRuntimeException {
+    public InvalidRefreshTokenException() {
+        super("Refresh token is invalid or has expired.");
+    }
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
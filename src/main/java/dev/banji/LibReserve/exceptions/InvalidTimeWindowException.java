@@ -0,0 +1,7 @@
+package dev.banji.LibReserve.exceptions;
+
+public class InvalidTimeWindowException extends LibraryRuntimeException {
+    public InvalidTimeWindowException() {
+        super("The start of the time window must be before its end.");
+    }
+}
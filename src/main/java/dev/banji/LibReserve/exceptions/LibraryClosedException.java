@@ -4,15 +4,18 @@ import lombok.Getter;
 
 @Getter
 public class LibraryClosedException extends LibraryRuntimeException {
-    private LibraryClosedException(String message) {
+    private final boolean maximumLimitReached;
+
+    private LibraryClosedException(String message, boolean maximumLimitReached) {
         super(message);
+        this.maximumLimitReached = maximumLimitReached;
     }
 
     public static LibraryClosedException LibraryNotOperationalException() {
-        return new LibraryClosedException("Sorry, the library has closed for now.");
+        return new LibraryClosedException("Sorry, the library has closed for now.", false);
     }
 
     public static LibraryClosedException LibraryMaximumLimitReached() {
-        return new LibraryClosedException("Sorry, the library has reached it's maximum limit. You'll be notified when a spot becomes available."); //you'll be notified...
+        return new LibraryClosedException("Sorry, the library has reached it's maximum limit. You'll be notified when a spot becomes available.", true); //you'll be notified...
     }
 }
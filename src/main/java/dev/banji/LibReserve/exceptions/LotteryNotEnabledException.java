@@ -0,0 +1,7 @@
+package dev.banji.LibReserve.exceptions;
+
+public class LotteryNotEnabledException extends LibraryRuntimeException {
+    public LotteryNotEnabledException() {
+        super("Lottery allocation is not enabled.");
+    }
+}
@@ -1,4 +1,7 @@
 package dev.banji.LibReserve.exceptions;
 
 public class MultipleTimeExtensionException extends LibraryRuntimeException {
+    public MultipleTimeExtensionException() {
+        super("The stay has already been extended once.");
+    }
 }
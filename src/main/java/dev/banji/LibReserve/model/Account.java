@@ -8,13 +8,13 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
-import static lombok.AccessLevel.PRIVATE;
+import static lombok.AccessLevel.PROTECTED;
 
 @Getter
 @Setter
 @ToString
 @Entity
-@NoArgsConstructor(access = PRIVATE)
+@NoArgsConstructor(access = PROTECTED) //lazily loaded through a proxy.
 public class Account {
     @Id
     @GeneratedValue
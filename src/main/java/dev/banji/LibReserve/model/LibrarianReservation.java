@@ -4,6 +4,7 @@ import dev.banji.LibReserve.model.enums.ReservationStatus;
 import jakarta.persistence.*;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
@@ -12,10 +13,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
+import static lombok.AccessLevel.PRIVATE;
+
 @Getter
 @Setter
 @ToString
 @Entity
+@NoArgsConstructor(access = PRIVATE)
 public class LibrarianReservation extends Reservation {
     @Id
     @GeneratedValue
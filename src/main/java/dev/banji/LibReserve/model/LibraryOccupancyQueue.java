@@ -3,7 +3,11 @@ package dev.banji.LibReserve.model;
 import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
 import dev.banji.LibReserve.exceptions.LibraryClosedException;
 import dev.banji.LibReserve.model.dtos.CurrentStudentDetailDto;
+import dev.banji.LibReserve.model.dtos.LockDiagnosticsDto;
+import dev.banji.LibReserve.model.events.SeatOccupancyChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -11,6 +15,10 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.IntConsumer;
+
+import static dev.banji.LibReserve.model.OccupancyLockProfiler.Operation.*;
+import static dev.banji.LibReserve.model.enums.SeatChange.*;
 
 @Component
 //@PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
@@ -18,32 +26,48 @@ public class LibraryOccupancyQueue extends ArrayBlockingQueue<InmemoryUserDetail
     @Getter
     private final ArrayList<Long> internalAvailableSeatNumberList;
     private final LibraryConfigurationProperties libraryConfigurationProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OccupancyLockProfiler lockProfiler; //guards the queue together with the seat list, and times every operation.
 
 
-    public LibraryOccupancyQueue(LibraryConfigurationProperties libraryConfigurationProperties) {
+    public LibraryOccupancyQueue(LibraryConfigurationProperties libraryConfigurationProperties, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
         super(libraryConfigurationProperties.getNumberOfSeats().intValue());
         this.libraryConfigurationProperties = libraryConfigurationProperties;
+        this.eventPublisher = eventPublisher;
+        this.lockProfiler = new OccupancyLockProfiler(meterRegistry);
         internalAvailableSeatNumberList = new ArrayList<>();
-        for (int i = 1; i < libraryConfigurationProperties.getNumberOfSeats().intValue(); i++) { //this is to simply store the available seats...
+        for (int i = 1; i <= libraryConfigurationProperties.getNumberOfSeats().intValue(); i++) { //this is to simply store the available seats...
             internalAvailableSeatNumberList.add((long) i);
         }
     }
 
-    public synchronized boolean isSeatTaken(Long seatNumber) {
-        return !internalAvailableSeatNumberList.contains(seatNumber);
+    public boolean isSeatTaken(Long seatNumber) {
+        return lockProfiler.locked(SEAT_CHECK, () -> !internalAvailableSeatNumberList.contains(seatNumber));
+    }
+
+    public boolean isEmpty() {
+        return lockProfiler.locked(CAPACITY_CHECK, () -> size() == 0);
+    }
+
+    public void isLibraryFull() { //check if library is currently filled up at that moment
+        lockProfiler.locked(CAPACITY_CHECK, () -> {
+            if (remainingCapacity() <= 0) throw LibraryClosedException.LibraryMaximumLimitReached();
+        });
     }
 
-    public synchronized boolean isEmpty() {
-        return size() == 0;
+    public int freeSeatCount() {
+        return lockProfiler.locked(CAPACITY_CHECK, internalAvailableSeatNumberList::size);
     }
 
-    public synchronized void isLibraryFull() { //check if library is currently filled up at that moment
-        if (remainingCapacity() <= 0) throw LibraryClosedException.LibraryMaximumLimitReached();
+    public LockDiagnosticsDto lockDiagnostics() {
+        return lockProfiler.diagnostics();
     }
 
-    private synchronized boolean signOutUser(InmemoryUserDetailDto inmemoryUserDetailDto) {
+    private boolean signOutUser(InmemoryUserDetailDto inmemoryUserDetailDto) {
         boolean seatFreedUp = freeUpSeat(inmemoryUserDetailDto.getSeatNumber());
         boolean removed = this.removeIf(inMemoryUserDetail -> inMemoryUserDetail.equals(inmemoryUserDetailDto));
+        if (removed) //published while holding the lock, so the seat map sees changes in the same order as this queue.
+            eventPublisher.publishEvent(SeatOccupancyChangedEvent.of(FREED, inmemoryUserDetailDto));
         return removed && seatFreedUp;
     }
 
@@ -52,30 +76,40 @@ public class LibraryOccupancyQueue extends ArrayBlockingQueue<InmemoryUserDetail
      *
      * @return true if operation is successful. else false.
      */
-    public synchronized boolean signOutStudent(CurrentStudentDetailDto studentDetailDto) {
-        return signOutUser(studentDetailDto);
+    public boolean signOutStudent(CurrentStudentDetailDto studentDetailDto) {
+        return lockProfiler.locked(SIGN_OUT, () -> signOutUser(studentDetailDto));
     }
 
-    public synchronized boolean signOutLibrarian(CurrentLibrarianDetailDto librarianDetailDto) {
-        return signOutUser(librarianDetailDto);
+    public boolean signOutLibrarian(CurrentLibrarianDetailDto librarianDetailDto) {
+        return lockProfiler.locked(SIGN_OUT, () -> signOutUser(librarianDetailDto));
     }
 
-    private synchronized boolean updateUserSession(InmemoryUserDetailDto userDetailDto) {
-        return add(userDetailDto);
+    private boolean updateUserSession(InmemoryUserDetailDto userDetailDto) {
+        boolean added = add(userDetailDto);
+        if (added) eventPublisher.publishEvent(SeatOccupancyChangedEvent.of(CLAIMED, userDetailDto));
+        return added;
     }
 
-    public synchronized boolean updateStudentSession(InmemoryUserDetailDto userDetailDto) {
-        return updateUserSession(userDetailDto);
+    public boolean updateStudentSession(InmemoryUserDetailDto userDetailDto) {
+        return lockProfiler.locked(SIGN_IN, () -> updateUserSession(userDetailDto));
     }
 
-    public synchronized void updateLibrarianSession(InmemoryUserDetailDto userDetailDto) {
-        updateUserSession(userDetailDto);
+    public void updateLibrarianSession(InmemoryUserDetailDto userDetailDto) {
+        lockProfiler.locked(SIGN_IN, () -> updateUserSession(userDetailDto));
+    }
+
+    /**
+     * Announces the new end of stay of a student whose reservation was just extended.
+     */
+    public void extendStudentSession(String matricNumber) {
+        lockProfiler.locked(EXTEND, () -> stream().filter(userDetail -> userDetail.getIdentifier().equals(matricNumber)).findFirst()
+                .ifPresent(userDetail -> eventPublisher.publishEvent(SeatOccupancyChangedEvent.of(EXTENDED, userDetail))));
     }
 
-    public synchronized Optional<Reservation> isUserPresentInLibrary(String userIdentifier) {
-        return stream()
+    public Optional<Reservation> isUserPresentInLibrary(String userIdentifier) {
+        return lockProfiler.locked(PRESENCE_LOOKUP, () -> stream()
                 .filter(userDetail -> userDetail.getIdentifier().equals(userIdentifier))
-                .map(InmemoryUserDetailDto::getReservation).findFirst();
+                .map(InmemoryUserDetailDto::getReservation).findFirst());
     }
 
     /**
@@ -84,10 +118,10 @@ public class LibraryOccupancyQueue extends ArrayBlockingQueue<InmemoryUserDetail
      * @param reservationCode - the reservation code
      * @return Optional<StudentReservation>
      */
-    public synchronized Optional<StudentReservation> isStudentPresentInLibrary(String reservationCode) {
-        return stream()
+    public Optional<StudentReservation> isStudentPresentInLibrary(String reservationCode) {
+        return lockProfiler.locked(PRESENCE_LOOKUP, () -> stream()
                 .filter(userDetail -> ((CurrentStudentDetailDto) userDetail).getReservationCode().equals(reservationCode))
-                .map(inmemoryUserDetailDto -> (StudentReservation) inmemoryUserDetailDto.getReservation()).findFirst();
+                .map(inmemoryUserDetailDto -> (StudentReservation) inmemoryUserDetailDto.getReservation()).findFirst());
     }
 
     public ArrayList<InmemoryUserDetailDto> fetchOccupancyQueueAsList() {
@@ -100,7 +134,24 @@ public class LibraryOccupancyQueue extends ArrayBlockingQueue<InmemoryUserDetail
         return false;
     }
 
-    public Optional<Long> seatNumberResolver(List<Long> seatList, boolean isLibrarian) {
+    public Optional<Long> seatNumberResolver(List<Long> seatList, boolean isLibrarian) { //the pick and the removal from the seat list happen under one lock.
+        return lockProfiler.locked(SEAT_RESOLVE, () -> resolveSeatNumber(seatList, isLibrarian));
+    }
+
+    /**
+     * Resolves a walk-in seat under the same lock as the admission check, so no other walk-in can take the seat the
+     * check counted on between the two.
+     *
+     * @param admissionCheck given the number of free seats, throws if the walk-in may not take one of them.
+     */
+    public Optional<Long> walkInSeatResolver(IntConsumer admissionCheck) {
+        return lockProfiler.locked(SEAT_RESOLVE, () -> {
+            admissionCheck.accept(internalAvailableSeatNumberList.size());
+            return resolveSeatNumber(internalAvailableSeatNumberList, false);
+        });
+    }
+
+    private Optional<Long> resolveSeatNumber(List<Long> seatList, boolean isLibrarian) {
         boolean randomizeSeatsAllocation = libraryConfigurationProperties.getEnableSeatRandomization();
         List<Long> availableSeatList = seatList.stream().filter(seat -> !isSeatTaken(seat)).toList();
 
@@ -114,6 +165,8 @@ public class LibraryOccupancyQueue extends ArrayBlockingQueue<InmemoryUserDetail
             }
         }
 
+        if (availableSeatList.isEmpty()) return Optional.empty(); //every seat of the list was taken meanwhile.
+
         if (randomizeSeatsAllocation) {
             int randomIndex = new Random().nextInt(availableSeatList.size());
             Long seatNumber = availableSeatList.get(randomIndex);
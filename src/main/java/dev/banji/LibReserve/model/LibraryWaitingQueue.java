@@ -0,0 +1,54 @@
+package dev.banji.LibReserve.model;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * The students waiting for a walk-in seat, first come first served. A student holds at most one place in the queue;
+ * joining again keeps the original place.
+ */
+@Component
+public class LibraryWaitingQueue {
+    private final LinkedHashMap<String, WaitingStudent> waitingStudents = new LinkedHashMap<>(); //matric number -> entry, in arrival order.
+
+    /**
+     * @return the 1-based position of the student.
+     */
+    public synchronized int join(String matricNumber) {
+        waitingStudents.putIfAbsent(matricNumber, new WaitingStudent(matricNumber, Instant.now()));
+        return positionOf(matricNumber).orElseThrow();
+    }
+
+    public synchronized OptionalInt positionOf(String matricNumber) {
+        if (!waitingStudents.containsKey(matricNumber)) return OptionalInt.empty();
+        int position = 1;
+        for (String waitingMatricNumber : waitingStudents.keySet()) {
+            if (waitingMatricNumber.equals(matricNumber)) break;
+            position++;
+        }
+        return OptionalInt.of(position);
+    }
+
+    public synchronized boolean leave(String matricNumber) {
+        return waitingStudents.remove(matricNumber) != null;
+    }
+
+    public synchronized Optional<WaitingStudent> pollFirst() {
+        var iterator = waitingStudents.values().iterator();
+        if (!iterator.hasNext()) return Optional.empty();
+        WaitingStudent first = iterator.next();
+        iterator.remove();
+        return Optional.of(first);
+    }
+
+    public synchronized int size() {
+        return waitingStudents.size();
+    }
+
+    public record WaitingStudent(String matricNumber, Instant joinedAt) {
+    }
+}
@@ -0,0 +1,82 @@
+package dev.banji.LibReserve.model;
+
+import dev.banji.LibReserve.model.enums.NotificationChannel;
+import dev.banji.LibReserve.model.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+import static jakarta.persistence.EnumType.STRING;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * A notification waiting to be delivered. Rows are written in the same transaction as the change that triggered
+ * them, so a rolled back change never notifies anyone and a crash never loses a committed notification.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor(access = PRIVATE)
+@Table(indexes = @Index(columnList = "status, id"))
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @Version
+    private Long version;
+
+    @Enumerated(STRING)
+    @Column(updatable = false, nullable = false)
+    private NotificationChannel channel;
+
+    @Column(updatable = false, nullable = false)
+    private String recipient;
+
+    @Column(updatable = false)
+    private String subject;
+
+    @Column(updatable = false, length = 4000)
+    private String body;
+
+    /**
+     * Set for notices about the state of the recipient's account, e.g. a blacklist. These are delivered even once the
+     * recipient's rate limit is exhausted.
+     */
+    @Column(updatable = false)
+    private boolean accountNotice;
+
+    @Enumerated(STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    /**
+     * The number of times this row has been claimed for delivery.
+     */
+    private int attempts;
+
+    @Column(updatable = false, nullable = false)
+    private Instant createdAt;
+
+    /**
+     * The instance currently holding the lease.
+     */
+    private String claimedBy;
+
+    private Instant claimedUntil;
+
+    private Instant sentAt;
+
+    public NotificationOutbox(NotificationChannel channel, String recipient, String subject, String body, boolean accountNotice) {
+        this.channel = channel;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.accountNotice = accountNotice;
+        this.status = OutboxStatus.PENDING;
+        this.createdAt = Instant.now();
+    }
+}
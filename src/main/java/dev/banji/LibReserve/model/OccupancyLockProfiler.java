@@ -0,0 +1,85 @@
+package dev.banji.LibReserve.model;
+
+import dev.banji.LibReserve.model.dtos.LockDiagnosticsDto;
+import dev.banji.LibReserve.model.dtos.LockDiagnosticsDto.OperationTimingDto;
+import dev.banji.LibReserve.model.dtos.LockDiagnosticsDto.TimingDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Runs the occupancy queue operations under one lock and records, per operation, how long callers waited for it and
+ * how long they held it. Nested calls on a thread that already holds the lock are timed as part of the outer call.
+ */
+public final class OccupancyLockProfiler {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Operation, Timer> waitTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Timer> holdTimers = new EnumMap<>(Operation.class);
+
+    public OccupancyLockProfiler(MeterRegistry meterRegistry) {
+        for (Operation operation : Operation.values()) {
+            waitTimers.put(operation, timer("libreserve.occupancy.lock.wait", "Time spent waiting for the occupancy queue lock", operation, meterRegistry));
+            holdTimers.put(operation, timer("libreserve.occupancy.lock.hold", "Time the occupancy queue lock was held", operation, meterRegistry));
+        }
+    }
+
+    public <T> T locked(Operation operation, Supplier<T> action) {
+        if (lock.isHeldByCurrentThread()) return action.get();
+        long waitStart = System.nanoTime();
+        lock.lock();
+        long acquired = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            long released = System.nanoTime();
+            lock.unlock();
+            waitTimers.get(operation).record(acquired - waitStart, NANOSECONDS);
+            holdTimers.get(operation).record(released - acquired, NANOSECONDS);
+        }
+    }
+
+    public void locked(Operation operation, Runnable action) {
+        locked(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public LockDiagnosticsDto diagnostics() {
+        return new LockDiagnosticsDto("LibraryOccupancyQueue", lock.isLocked(), lock.getQueueLength(), Arrays.stream(Operation.values())
+                .map(operation -> new OperationTimingDto(operation.tag, waitTimers.get(operation).count(),
+                        timing(waitTimers.get(operation).takeSnapshot()), timing(holdTimers.get(operation).takeSnapshot()))).toList());
+    }
+
+    private static TimingDto timing(HistogramSnapshot snapshot) {
+        ValueAtPercentile[] percentiles = snapshot.percentileValues(); //in the order they were published.
+        return new TimingDto(snapshot.mean(MILLISECONDS), percentiles[0].value(MILLISECONDS), percentiles[1].value(MILLISECONDS),
+                percentiles[2].value(MILLISECONDS), snapshot.max(MILLISECONDS));
+    }
+
+    private static Timer timer(String name, String description, Operation operation, MeterRegistry meterRegistry) {
+        return Timer.builder(name).description(description).tag("operation", operation.tag)
+                .publishPercentiles(0.5, 0.99, 0.999).publishPercentileHistogram().register(meterRegistry);
+    }
+
+    public enum Operation {
+        SIGN_IN("sign-in"), SIGN_OUT("sign-out"), EXTEND("extend"), PRESENCE_LOOKUP("presence-lookup"),
+        SEAT_CHECK("seat-check"), SEAT_RESOLVE("seat-resolve"), CAPACITY_CHECK("capacity-check");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package dev.banji.LibReserve.model;
+
+import dev.banji.LibReserve.model.enums.UserType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+import static jakarta.persistence.EnumType.STRING;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * An opaque refresh token. Only the SHA-256 hash of the token is stored, never the raw value.
+ * Tokens issued from the same login share a family; presenting a token that was already rotated revokes the whole family.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor(access = PRIVATE)
+@Table(indexes = {@Index(columnList = "tokenHash", unique = true), @Index(columnList = "familyId"), @Index(columnList = "subject")})
+public class RefreshToken {
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @Version
+    private Long version;
+
+    @Column(updatable = false, nullable = false)
+    private String tokenHash;
+
+    /**
+     * The matric number or staff number the token was issued to.
+     */
+    @Column(updatable = false, nullable = false)
+    private String subject;
+
+    @Enumerated(STRING)
+    @Column(updatable = false, nullable = false)
+    private UserType userType;
+
+    /**
+     * The scope claim carried over to every access token minted from this token.
+     */
+    @Column(updatable = false, nullable = false)
+    private String scope;
+
+    @Column(updatable = false, nullable = false)
+    private String familyId;
+
+    @Column(updatable = false, nullable = false)
+    private Instant issuedAt;
+
+    @Column(updatable = false, nullable = false)
+    private Instant expiresAt;
+
+    /**
+     * Set once the token has been exchanged for a new pair.
+     */
+    private Instant rotatedAt;
+
+    private boolean revoked;
+
+    public RefreshToken(String tokenHash, String subject, UserType userType, String scope, String familyId, Instant issuedAt, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.subject = subject;
+        this.userType = userType;
+        this.scope = scope;
+        this.familyId = familyId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+}
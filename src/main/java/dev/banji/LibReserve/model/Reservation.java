@@ -4,6 +4,7 @@ import dev.banji.LibReserve.model.enums.ReservationStatus;
 import jakarta.persistence.Column;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
@@ -12,6 +13,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
+import static lombok.AccessLevel.PROTECTED;
+
 /**
  * An abstract class representing a reservation in a library.
  */
@@ -19,12 +22,13 @@ import java.time.LocalTime;
 @SuperBuilder
 @Getter
 @Setter
+@NoArgsConstructor(access = PROTECTED)
 public abstract class Reservation {
 
     /**
      * The precise time the student checked in.
      */
-    @Column(updatable = false, nullable = false)
+    @Column(nullable = false)
     protected LocalTime checkInTime;
 
     /**
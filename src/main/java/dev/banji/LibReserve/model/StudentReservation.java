@@ -4,6 +4,7 @@ import dev.banji.LibReserve.model.enums.ReservationStatus;
 import jakarta.persistence.*;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.Duration;
@@ -11,9 +12,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
+import static lombok.AccessLevel.PRIVATE;
+
 @Getter
 @Setter
 @Entity
+@EntityListeners(StudentReservationListener.class)
+@NoArgsConstructor(access = PRIVATE)
 public class StudentReservation extends Reservation {
     @Id
     @GeneratedValue
@@ -31,6 +36,9 @@ public class StudentReservation extends Reservation {
     @Column(updatable = false)
     private Duration totalExtensionDuration;
 
+    @Transient
+    private ReservationStatus persistedStatus; //the status last read from or written to the database.
+
     @Builder
     public StudentReservation(LocalTime checkInTime, long seatNumber, Duration intendedStay, LocalDate reservationCreationDate, LocalTime reservationCreationTime, LocalDate dateReservationWasMadeFor, LocalTime timeReservationWasMadeFor, ReservationStatus reservationStatus, LocalDateTime checkOutDateAndTime, Long id, Student student, String reservationCode, Duration totalExtensionDuration, boolean stayExtended) {
         super(checkInTime, seatNumber, intendedStay, reservationCreationDate, reservationCreationTime, dateReservationWasMadeFor, timeReservationWasMadeFor, reservationStatus, checkOutDateAndTime);
@@ -0,0 +1,41 @@
+package dev.banji.LibReserve.model;
+
+import dev.banji.LibReserve.model.events.ReservationStatusChangedEvent;
+import dev.banji.LibReserve.model.events.StudentReservationChangedEvent;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Objects;
+
+/**
+ * Turns every write to a student reservation into a {@link StudentReservationChangedEvent}, whichever service made it,
+ * and every status change into a {@link ReservationStatusChangedEvent}.
+ * Instantiated by Hibernate through the Spring bean container.
+ */
+@RequiredArgsConstructor
+public class StudentReservationListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostLoad
+    void reservationLoaded(StudentReservation reservation) {
+        reservation.setPersistedStatus(reservation.getReservationStatus());
+    }
+
+    @PostPersist
+    @PostUpdate
+    void reservationSaved(StudentReservation reservation) {
+        eventPublisher.publishEvent(StudentReservationChangedEvent.of(reservation, false));
+        if (Objects.equals(reservation.getPersistedStatus(), reservation.getReservationStatus())) return;
+        eventPublisher.publishEvent(ReservationStatusChangedEvent.of(reservation, reservation.getPersistedStatus()));
+        reservation.setPersistedStatus(reservation.getReservationStatus());
+    }
+
+    @PostRemove
+    void reservationRemoved(StudentReservation reservation) {
+        eventPublisher.publishEvent(StudentReservationChangedEvent.of(reservation, true));
+    }
+}
@@ -0,0 +1,69 @@
+package dev.banji.LibReserve.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Seat utilization of one department during one hour of one day. Rows are updated as reservations change status, so
+ * reports never have to scan the reservations themselves.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor(access = PRIVATE)
+public class UtilizationRollup {
+    @EmbeddedId
+    private Key id;
+    private long checkIns;
+    private long checkOuts;
+    private long expiries;
+    private long cancellations;
+    /**
+     * Minutes of this hour spent in a seat, summed over every student.
+     */
+    private long occupiedSeatMinutes;
+
+    public UtilizationRollup(Key id) {
+        this.id = id;
+    }
+
+    public void add(UtilizationRollup delta) {
+        add(delta.checkIns, delta.checkOuts, delta.expiries, delta.cancellations, delta.occupiedSeatMinutes);
+    }
+
+    public void add(long checkIns, long checkOuts, long expiries, long cancellations, long occupiedSeatMinutes) {
+        this.checkIns += checkIns;
+        this.checkOuts += checkOuts;
+        this.expiries += expiries;
+        this.cancellations += cancellations;
+        this.occupiedSeatMinutes += occupiedSeatMinutes;
+    }
+
+    @Getter
+    @Embeddable
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = PRIVATE)
+    public static class Key implements Serializable {
+        private LocalDate rollupDate;
+        @Column(name = "hour_of_day")
+        private int hourOfDay;
+        private String department;
+
+        public Key(LocalDate rollupDate, int hourOfDay, String department) {
+            this.rollupDate = rollupDate;
+            this.hourOfDay = hourOfDay;
+            this.department = department;
+        }
+    }
+}
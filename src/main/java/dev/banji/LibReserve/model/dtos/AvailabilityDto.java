@@ -0,0 +1,18 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * @param freeSeats the seats that are free for the whole window.
+ * @param seats     the free time windows of every seat within the requested window.
+ */
+public record AvailabilityDto(LocalDate date, LocalTime from, LocalTime to, long version, List<Long> freeSeats,
+                              List<SeatAvailabilityDto> seats) {
+    public record SeatAvailabilityDto(long seatNumber, List<TimeWindowDto> freeWindows) {
+    }
+
+    public record TimeWindowDto(LocalTime from, LocalTime to) {
+    }
+}
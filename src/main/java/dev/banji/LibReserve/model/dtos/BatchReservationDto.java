@@ -0,0 +1,14 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record BatchReservationDto(List<ProposedSlotDto> slots) {
+    public record ProposedSlotDto(LocalDateTime proposedDateAndTime, Duration duration) {
+    }
+
+    public record ReservedSlotDto(LocalDateTime proposedDateAndTime, Duration duration, long seatNumber,
+                                  String reservationCode) {
+    }
+}
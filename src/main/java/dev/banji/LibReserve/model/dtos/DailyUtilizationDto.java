@@ -0,0 +1,12 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.time.LocalDate;
+
+/**
+ * @param utilization     the share of seat minutes that were occupied, over the hours in which any seat was occupied.
+ * @param peakHourOfDay   the hour with the highest utilization, null when no seat was occupied.
+ */
+public record DailyUtilizationDto(LocalDate date, long checkIns, long checkOuts, long expiries, long cancellations,
+                                  long occupiedSeatMinutes, double utilization, Integer peakHourOfDay,
+                                  double peakHourUtilization) {
+}
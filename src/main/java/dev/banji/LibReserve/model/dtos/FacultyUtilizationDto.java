@@ -0,0 +1,12 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.util.List;
+
+/**
+ * @param departments         the departments seen in the rollups that belong to this faculty.
+ * @param shareOfOccupancy    this faculty's share of all occupied seat minutes in the range, from 0 to 1.
+ */
+public record FacultyUtilizationDto(String faculty, List<String> departments, long checkIns, long checkOuts,
+                                    long expiries, long cancellations, long occupiedSeatMinutes,
+                                    double shareOfOccupancy) {
+}
@@ -0,0 +1,20 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.util.List;
+
+/**
+ * @param queries  the slowest queries by total time since startup, with literals redacted.
+ * @param requests entity loads, collection fetches and statements per request, grouped by route.
+ */
+public record HibernateStatisticsDto(boolean enabled, long queryExecutions, long entityLoads, long entityFetches,
+                                     long collectionLoads, long collectionFetches, long prepareStatements,
+                                     String slowestQuery, long slowestQueryTimeInMillis,
+                                     List<QueryStatisticsDto> queries, List<RequestLoadDto> requests) {
+    public record QueryStatisticsDto(String query, long executions, long totalTimeInMillis, long meanTimeInMillis,
+                                     long maximumTimeInMillis, long rows) {
+    }
+
+    public record RequestLoadDto(String route, long requests, double meanEntityLoads, long maximumEntityLoads,
+                                 double meanCollectionFetches, double meanStatements, long maximumStatements) {
+    }
+}
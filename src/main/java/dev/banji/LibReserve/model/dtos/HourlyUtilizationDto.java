@@ -0,0 +1,10 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.time.LocalDate;
+
+/**
+ * @param utilization the share of all seat minutes of the hour that were occupied, from 0 to 1.
+ */
+public record HourlyUtilizationDto(LocalDate date, int hourOfDay, long checkIns, long checkOuts, long expiries,
+                                   long cancellations, long occupiedSeatMinutes, double utilization) {
+}
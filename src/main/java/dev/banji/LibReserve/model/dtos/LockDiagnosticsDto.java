@@ -0,0 +1,16 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.util.List;
+
+/**
+ * @param queuedThreads threads waiting for the lock when the snapshot was taken.
+ * @param operations    the wait and hold times of every operation in milliseconds. The count runs from startup, the
+ *                      percentiles and maximum cover the last few minutes.
+ */
+public record LockDiagnosticsDto(String lock, boolean locked, int queuedThreads, List<OperationTimingDto> operations) {
+    public record OperationTimingDto(String operation, long count, TimingDto waitTime, TimingDto holdTime) {
+    }
+
+    public record TimingDto(double mean, double p50, double p99, double p999, double max) {
+    }
+}
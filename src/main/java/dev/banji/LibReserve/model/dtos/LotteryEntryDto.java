@@ -0,0 +1,11 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Confirms a lottery entry. The result is sent as a notification after the draw.
+ */
+public record LotteryEntryDto(LocalDateTime proposedDateAndTime, Duration duration, Instant nextDrawAt) {
+}
@@ -6,5 +6,8 @@ public record NotificationsConfig(Boolean viaWeb,
                                   String blackListNotificationBody, String timeAlmostUpNotificationSubject,
                                   String timeAlmostUpNotificationBody, String studentBlackListNotificationSubject,
                                   String studentBlackListNotificationBody, String studentKickedOutNotificationSubject,
-                                  String studentKickedOutNotificationBody) {
+                                  String studentKickedOutNotificationBody, String seatOfferNotificationSubject,
+                                  String seatOfferNotificationBody, String lotteryWonNotificationSubject,
+                                  String lotteryWonNotificationBody, String lotteryLostNotificationSubject,
+                                  String lotteryLostNotificationBody) {
 }
\ No newline at end of file
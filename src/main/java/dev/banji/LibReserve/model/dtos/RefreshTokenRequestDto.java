@@ -0,0 +1,4 @@
+package dev.banji.LibReserve.model.dtos;
+
+public record RefreshTokenRequestDto(String refreshToken) {
+}
@@ -0,0 +1,11 @@
+package dev.banji.LibReserve.model.dtos;
+
+import dev.banji.LibReserve.model.enums.SeatChange;
+
+import java.time.LocalTime;
+
+/**
+ * A single change to the seat map. Versions are consecutive, so a client that sees a gap knows it has to resynchronize.
+ */
+public record SeatMapDeltaDto(long version, SeatChange change, long seatNumber, LocalTime occupiedUntil) {
+}
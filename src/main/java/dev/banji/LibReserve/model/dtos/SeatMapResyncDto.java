@@ -0,0 +1,9 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.util.List;
+
+/**
+ * The answer to a resynchronization request: either the missed deltas, or a fresh snapshot when they are no longer retained.
+ */
+public record SeatMapResyncDto(List<SeatMapDeltaDto> deltas, SeatMapSnapshotDto snapshot) {
+}
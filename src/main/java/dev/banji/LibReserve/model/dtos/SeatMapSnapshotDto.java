@@ -0,0 +1,12 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * The full seat map at a given version. Deltas with a higher version apply on top of it.
+ */
+public record SeatMapSnapshotDto(long version, long numberOfSeats, List<OccupiedSeatDto> occupiedSeats) {
+    public record OccupiedSeatDto(long seatNumber, LocalTime occupiedUntil) {
+    }
+}
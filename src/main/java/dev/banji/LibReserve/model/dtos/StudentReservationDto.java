@@ -1,11 +1,15 @@
 package dev.banji.LibReserve.model.dtos;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import dev.banji.LibReserve.model.StudentReservation;
 import dev.banji.LibReserve.model.enums.ReservationStatus;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 
+/**
+ * The accessors are record style, so each one is marked for Jackson explicitly.
+ */
 public final class StudentReservationDto implements AbstractReservationDto {
     private final StudentReservation studentReservation;
 
@@ -13,52 +17,63 @@ public final class StudentReservationDto implements AbstractReservationDto {
         this.studentReservation = studentReservation;
     }
 
-    String matricNumber() {
+    @JsonProperty
+    public String matricNumber() {
         return studentReservation.getStudent().getMatricNumber();
     }
 
     @Override
+    @JsonProperty
     public LocalDateTime checkOutDateTime() {
         return studentReservation.getCheckOutDateAndTime();
     }
 
+    @JsonProperty
     public Duration totalDuration() {
         return studentReservation.getTotalExtensionDuration();
     }
 
+    @JsonProperty
     public String reservationCode() {
         return studentReservation.getReservationCode();
     }
 
     @Override
+    @JsonProperty
     public ReservationStatus reservationStatus() {
         return studentReservation.getReservationStatus();
     }
 
+    @JsonProperty
     public LocalDateTime reservationMadeOn() {
         return LocalDateTime.of(studentReservation.getReservationCreationDate(), studentReservation.getReservationCreationTime());
     }
 
     @Override
+    @JsonProperty
     public LocalDateTime reservedDateAndTime() {
         return LocalDateTime.of(studentReservation.getDateReservationWasMadeFor(), studentReservation.getTimeReservationWasMadeFor());
     }
 
     @Override
+    @JsonProperty
     public Duration initialDuration() {
         return studentReservation.getIntendedStay();
 
     }
 
+    @JsonProperty
     public Boolean stayExtended() {
         return studentReservation.isStayExtended();
     }
 
+    @JsonProperty
     public Duration extensionAdded() {
         return studentReservation.getTotalExtensionDuration();
     }
 
     @Override
+    @JsonProperty
     public Long seatNumber() {
         return studentReservation.getSeatNumber();
     }
@@ -0,0 +1,4 @@
+package dev.banji.LibReserve.model.dtos;
+
+public record TokenPairDto(String accessToken, String refreshToken) {
+}
@@ -0,0 +1,19 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A finished request and its spans, in start order.
+ */
+public record TraceDto(String name, Instant startedAt, double durationInMillis, int droppedSpans, List<SpanDto> spans) {
+    /**
+     * @param depth          0 for the root span, 1 for its children and so on.
+     * @param offsetInMillis time from the start of the root span to the start of this one.
+     * @param error          the simple name of the exception the span ended with, if any.
+     */
+    public record SpanDto(String name, int depth, double offsetInMillis, double durationInMillis, String error,
+                          Map<String, String> tags) {
+    }
+}
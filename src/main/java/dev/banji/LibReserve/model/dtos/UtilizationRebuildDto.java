@@ -0,0 +1,6 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.time.LocalDate;
+
+public record UtilizationRebuildDto(LocalDate from, LocalDate to, long reservationsReplayed, long rollupRows) {
+}
@@ -0,0 +1,10 @@
+package dev.banji.LibReserve.model.dtos;
+
+import java.time.Instant;
+
+/**
+ * @param position     the 1-based position in the waiting list, 0 once a seat has been offered.
+ * @param offerExpires when the held seat is released again, null if no seat is being offered.
+ */
+public record WaitlistStatusDto(int position, int waitingStudents, Instant offerExpires) {
+}
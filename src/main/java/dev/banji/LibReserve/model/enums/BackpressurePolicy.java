@@ -0,0 +1,11 @@
+package dev.banji.LibReserve.model.enums;
+
+/**
+ * What the notification dispatcher does when its queue is full.
+ */
+public enum BackpressurePolicy {
+    BLOCK, //wait for a free slot up to the configured offer timeout, then drop the new notification.
+    DROP_NEWEST, //drop the notification being enqueued.
+    DROP_OLDEST, //drop the notification that has waited the longest.
+    CALLER_RUNS //deliver on the calling thread.
+}
@@ -0,0 +1,6 @@
+package dev.banji.LibReserve.model.enums;
+
+public enum NotificationChannel {
+    WEB,
+    EMAIL
+}
@@ -0,0 +1,9 @@
+package dev.banji.LibReserve.model.enums;
+
+public enum OutboxStatus {
+    PENDING, //written together with the change that triggered it, waiting to be claimed.
+    CLAIMED, //leased by one instance, it is reclaimable once the lease runs out.
+    SENT, //delivered, either on its own or merged into a digest.
+    SUPPRESSED, //dropped because the recipient's rate limit was exhausted.
+    FAILED //all delivery attempts were used up.
+}
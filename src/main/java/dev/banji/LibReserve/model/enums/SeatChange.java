@@ -0,0 +1,7 @@
+package dev.banji.LibReserve.model.enums;
+
+public enum SeatChange {
+    CLAIMED,
+    FREED,
+    EXTENDED
+}
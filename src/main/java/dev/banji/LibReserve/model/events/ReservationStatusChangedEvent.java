@@ -0,0 +1,33 @@
+package dev.banji.LibReserve.model.events;
+
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.enums.ReservationStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Published when a student reservation is created or moves to a different status.
+ *
+ * @param previousStatus null when the reservation was just created.
+ * @param start          the booked start of the stay.
+ * @param checkedIn      when the student actually took the seat, the booked start until they checked in.
+ * @param end            the checkout time once checked out, otherwise the planned end of the stay.
+ */
+public record ReservationStatusChangedEvent(Long reservationId, String department, LocalDate date, LocalTime start, LocalTime checkedIn,
+                                            LocalTime end, ReservationStatus previousStatus, ReservationStatus status) {
+    public static ReservationStatusChangedEvent of(StudentReservation reservation, ReservationStatus previousStatus) {
+        LocalDate date = reservation.getDateReservationWasMadeFor();
+        LocalTime start = reservation.getTimeReservationWasMadeFor();
+        LocalTime end = start.plus(reservation.getIntendedStay());
+        if (reservation.isStayExtended() && reservation.getTotalExtensionDuration() != null)
+            end = end.plus(reservation.getTotalExtensionDuration());
+        if (end.isBefore(start)) end = LocalTime.MAX; //the stay runs past midnight.
+        if (reservation.getCheckOutDateAndTime() != null)
+            end = reservation.getCheckOutDateAndTime().toLocalDate().isAfter(date) ? LocalTime.MAX : reservation.getCheckOutDateAndTime().toLocalTime();
+        LocalTime checkedIn = reservation.getCheckInTime() == null ? start : reservation.getCheckInTime();
+        if (end.isBefore(checkedIn)) end = checkedIn; //checked out before the booked start, or the check-in.
+        String department = reservation.getStudent() == null ? null : reservation.getStudent().getDepartment();
+        return new ReservationStatusChangedEvent(reservation.getId(), department, date, start, checkedIn, end, previousStatus, reservation.getReservationStatus());
+    }
+}
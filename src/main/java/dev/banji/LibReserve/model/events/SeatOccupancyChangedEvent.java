@@ -0,0 +1,30 @@
+package dev.banji.LibReserve.model.events;
+
+import dev.banji.LibReserve.model.InmemoryUserDetailDto;
+import dev.banji.LibReserve.model.Reservation;
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.enums.SeatChange;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+/**
+ * Published by the {@link dev.banji.LibReserve.model.LibraryOccupancyQueue} whenever a seat is taken, freed or a stay is extended.
+ *
+ * @param occupiedUntil the estimated end of the stay, null when the seat was freed or no duration is known.
+ */
+public record SeatOccupancyChangedEvent(SeatChange change, long seatNumber, String identifier, LocalTime occupiedUntil) {
+
+    public static SeatOccupancyChangedEvent of(SeatChange change, InmemoryUserDetailDto userDetailDto) {
+        LocalTime occupiedUntil = change == SeatChange.FREED ? null : occupiedUntil(userDetailDto.getReservation());
+        return new SeatOccupancyChangedEvent(change, userDetailDto.getSeatNumber(), userDetailDto.getIdentifier(), occupiedUntil);
+    }
+
+    private static LocalTime occupiedUntil(Reservation reservation) {
+        if (reservation.getCheckInTime() == null || reservation.getIntendedStay() == null) return null;
+        LocalTime occupiedUntil = reservation.getCheckInTime().plus(reservation.getIntendedStay());
+        if (reservation instanceof StudentReservation studentReservation && studentReservation.isStayExtended())
+            occupiedUntil = occupiedUntil.plus(studentReservation.getTotalExtensionDuration() == null ? Duration.ZERO : studentReservation.getTotalExtensionDuration());
+        return occupiedUntil;
+    }
+}
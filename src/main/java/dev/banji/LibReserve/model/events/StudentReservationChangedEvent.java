@@ -0,0 +1,30 @@
+package dev.banji.LibReserve.model.events;
+
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.enums.ReservationStatus;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static dev.banji.LibReserve.model.enums.ReservationStatus.*;
+
+/**
+ * Published whenever a student reservation is persisted, updated or deleted.
+ *
+ * @param occupiesSeat false once the reservation no longer holds its seat, e.g. after it was cancelled or checked out.
+ */
+public record StudentReservationChangedEvent(Long reservationId, LocalDate date, long seatNumber, LocalTime start,
+                                             LocalTime end, boolean occupiesSeat) {
+    public static final Set<ReservationStatus> SEAT_HOLDING_STATUSES = EnumSet.of(BOOKED, CHECKED_IN, TIME_EXTENDED);
+
+    public static StudentReservationChangedEvent of(StudentReservation reservation, boolean deleted) {
+        LocalTime end = reservation.getCheckInTime().plus(reservation.getIntendedStay());
+        if (reservation.isStayExtended() && reservation.getTotalExtensionDuration() != null)
+            end = end.plus(reservation.getTotalExtensionDuration());
+        if (end.isBefore(reservation.getCheckInTime())) end = LocalTime.MAX; //the stay runs past midnight.
+        boolean occupiesSeat = !deleted && SEAT_HOLDING_STATUSES.contains(reservation.getReservationStatus());
+        return new StudentReservationChangedEvent(reservation.getId(), reservation.getDateReservationWasMadeFor(), reservation.getSeatNumber(), reservation.getCheckInTime(), end, occupiesSeat);
+    }
+}
@@ -0,0 +1,34 @@
+package dev.banji.LibReserve.repository;
+
+import dev.banji.LibReserve.model.NotificationOutbox;
+import dev.banji.LibReserve.model.enums.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+    /**
+     * Locks the next claimable rows. The lock timeout of -2 is rendered as SKIP LOCKED on databases that support it,
+     * so concurrent pollers on other instances skip rows that are being claimed instead of waiting for them.
+     * All pending rows of a recipient and channel become claimable together, once the oldest of them has settled.
+     * Rows are ordered by recipient, so a recipient's rows stay together within a batch.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select o from NotificationOutbox o where (o.status = :pending and exists (select p.id from NotificationOutbox p where p.recipient = o.recipient " +
+            "and p.channel = o.channel and p.status = :pending and p.createdAt <= :settledBefore)) or (o.status = :claimed and o.claimedUntil < :now) " +
+            "order by o.recipient, o.channel, o.id")
+    List<NotificationOutbox> findClaimable(OutboxStatus pending, OutboxStatus claimed, Instant settledBefore, Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("delete from NotificationOutbox o where o.status = :status and o.sentAt < :instant")
+    int deleteByStatusAndSentAtBefore(OutboxStatus status, Instant instant);
+
+    @Modifying
+    @Query("delete from NotificationOutbox o where o.status = :status and o.createdAt < :instant")
+    int deleteByStatusAndCreatedAtBefore(OutboxStatus status, Instant instant);
+}
@@ -0,0 +1,25 @@
+package dev.banji.LibReserve.repository;
+
+import dev.banji.LibReserve.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.familyId = :familyId and r.revoked = false")
+    int revokeFamily(String familyId);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.subject = :subject and r.revoked = false")
+    int revokeAllBySubject(String subject);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.expiresAt < :instant")
+    int deleteExpiredBefore(Instant instant);
+}
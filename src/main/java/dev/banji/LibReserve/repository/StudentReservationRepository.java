@@ -2,9 +2,12 @@ package dev.banji.LibReserve.repository;
 
 import dev.banji.LibReserve.model.StudentReservation;
 import dev.banji.LibReserve.model.enums.ReservationStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,4 +39,26 @@ public interface StudentReservationRepository extends JpaRepository<StudentReser
     List<StudentReservation> findByReservationCreationDate(LocalDate localDate);
 
     List<StudentReservation> findByDateReservationWasMadeFor(LocalDate localDate);
+
+    List<StudentReservation> findByDateReservationWasMadeForInAndReservationStatus(Collection<LocalDate> localDates, ReservationStatus reservationStatus);
+
+    List<StudentReservation> findByDateReservationWasMadeForGreaterThanEqualAndReservationStatusIn(LocalDate localDate, Collection<ReservationStatus> reservationStatuses);
+
+    @EntityGraph(attributePaths = "student")
+    List<StudentReservation> findWithStudentByDateReservationWasMadeFor(LocalDate localDate);
+
+    @EntityGraph(attributePaths = "student")
+    List<StudentReservation> findWithStudentByDateReservationWasMadeForInAndReservationStatus(Collection<LocalDate> localDates, ReservationStatus reservationStatus);
+
+    @Query("select r.student.matricNumber as matricNumber, r.dateReservationWasMadeFor as date, count(r) as numberOfReservations " +
+            "from StudentReservation r where r.dateReservationWasMadeFor in :dates group by r.student.matricNumber, r.dateReservationWasMadeFor")
+    List<ReservationCount> countReservationsPerStudentAndDate(Collection<LocalDate> dates);
+
+    interface ReservationCount {
+        String getMatricNumber();
+
+        LocalDate getDate();
+
+        long getNumberOfReservations();
+    }
 }
\ No newline at end of file
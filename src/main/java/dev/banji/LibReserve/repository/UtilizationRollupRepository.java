@@ -0,0 +1,60 @@
+package dev.banji.LibReserve.repository;
+
+import dev.banji.LibReserve.model.UtilizationRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface UtilizationRollupRepository extends JpaRepository<UtilizationRollup, UtilizationRollup.Key> {
+    @Modifying
+    @Query("delete from UtilizationRollup u where u.id.rollupDate = :date")
+    int deleteByRollupDate(LocalDate date);
+
+    /**
+     * Adds to the counters in the database itself, so concurrent writers never overwrite each other's counts.
+     *
+     * @return 0 if there is no row for the key yet.
+     */
+    @Modifying
+    @Query("update UtilizationRollup u set u.checkIns = u.checkIns + :checkIns, u.checkOuts = u.checkOuts + :checkOuts, " +
+            "u.expiries = u.expiries + :expiries, u.cancellations = u.cancellations + :cancellations, " +
+            "u.occupiedSeatMinutes = u.occupiedSeatMinutes + :occupiedSeatMinutes " +
+            "where u.id.rollupDate = :date and u.id.hourOfDay = :hourOfDay and u.id.department = :department")
+    int addTo(LocalDate date, int hourOfDay, String department, long checkIns, long checkOuts, long expiries, long cancellations, long occupiedSeatMinutes);
+
+    @Query("select u.id.rollupDate as date, u.id.hourOfDay as hourOfDay, sum(u.checkIns) as checkIns, sum(u.checkOuts) as checkOuts, " +
+            "sum(u.expiries) as expiries, sum(u.cancellations) as cancellations, sum(u.occupiedSeatMinutes) as occupiedSeatMinutes " +
+            "from UtilizationRollup u where u.id.rollupDate between :from and :to group by u.id.rollupDate, u.id.hourOfDay " +
+            "order by u.id.rollupDate, u.id.hourOfDay")
+    List<HourlyTotals> sumPerHour(LocalDate from, LocalDate to);
+
+    @Query("select u.id.department as department, sum(u.checkIns) as checkIns, sum(u.checkOuts) as checkOuts, " +
+            "sum(u.expiries) as expiries, sum(u.cancellations) as cancellations, sum(u.occupiedSeatMinutes) as occupiedSeatMinutes " +
+            "from UtilizationRollup u where u.id.rollupDate between :from and :to group by u.id.department")
+    List<DepartmentTotals> sumPerDepartment(LocalDate from, LocalDate to);
+
+    interface Totals {
+        long getCheckIns();
+
+        long getCheckOuts();
+
+        long getExpiries();
+
+        long getCancellations();
+
+        long getOccupiedSeatMinutes();
+    }
+
+    interface HourlyTotals extends Totals {
+        LocalDate getDate();
+
+        int getHourOfDay();
+    }
+
+    interface DepartmentTotals extends Totals {
+        String getDepartment();
+    }
+}
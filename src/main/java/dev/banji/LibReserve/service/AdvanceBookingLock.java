@@ -0,0 +1,31 @@
+package dev.banji.LibReserve.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes the allocation of advance seats. First come first served bookings and lottery draws both read the
+ * bookings of the day, pick a seat and commit while holding it, so neither can hand out a seat the other just took.
+ */
+@Component
+public class AdvanceBookingLock {
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public <T> T locked(Supplier<T> allocation) {
+        lock.lock();
+        try {
+            return allocation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void locked(Runnable allocation) {
+        locked(() -> {
+            allocation.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
+import dev.banji.LibReserve.exceptions.InvalidTimeWindowException;
+import dev.banji.LibReserve.model.dtos.AvailabilityDto;
+import dev.banji.LibReserve.model.dtos.AvailabilityDto.SeatAvailabilityDto;
+import dev.banji.LibReserve.model.dtos.AvailabilityDto.TimeWindowDto;
+import dev.banji.LibReserve.model.events.StudentReservationChangedEvent;
+import dev.banji.LibReserve.repository.StudentReservationRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static dev.banji.LibReserve.model.events.StudentReservationChangedEvent.SEAT_HOLDING_STATUSES;
+import static java.util.Comparator.comparing;
+import static java.util.concurrent.TimeUnit.HOURS;
+
+/**
+ * Answers availability queries from an in-memory copy of the seat holding reservations, one entry per day.
+ * The copy is loaded once at startup and then kept up to date by the reservation change events, which are only
+ * applied after the change commits. Queries never touch the database.
+ */
+@Service
+public class AvailabilityService {
+    private final StudentReservationRepository studentReservationRepository;
+    private final long numberOfSeats;
+    private final ConcurrentHashMap<LocalDate, DayOccupancy> occupancyByDay = new ConcurrentHashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong(); //shared by all days, so a version is never reused.
+
+    public AvailabilityService(StudentReservationRepository studentReservationRepository, LibraryConfigurationProperties libraryConfigurationProperties) {
+        this.studentReservationRepository = studentReservationRepository;
+        this.numberOfSeats = libraryConfigurationProperties.getNumberOfSeats();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadUpcomingReservations() {
+        studentReservationRepository.findByDateReservationWasMadeForGreaterThanEqualAndReservationStatusIn(LocalDate.now(), SEAT_HOLDING_STATUSES)
+                .forEach(reservation -> apply(StudentReservationChangedEvent.of(reservation, false)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentReservationChanged(StudentReservationChangedEvent event) {
+        if (event.date().isBefore(LocalDate.now())) return;
+        apply(event);
+    }
+
+    public AvailabilityDto availability(LocalDate date, LocalTime from, LocalTime to) {
+        if (!from.isBefore(to)) throw new InvalidTimeWindowException();
+        DayOccupancy dayOccupancy = occupancyByDay.get(date);
+        if (dayOccupancy == null)
+            return new AvailabilityDto(date, from, to, 0, seatNumbers(), seatNumbers().stream().map(seat -> new SeatAvailabilityDto(seat, List.of(new TimeWindowDto(from, to)))).toList());
+        return dayOccupancy.availability(date, from, to);
+    }
+
+    @Scheduled(fixedRate = 1, timeUnit = HOURS)
+    public void evictPastDays() {
+        occupancyByDay.keySet().removeIf(date -> date.isBefore(LocalDate.now()));
+    }
+
+    private void apply(StudentReservationChangedEvent event) {
+        if (event.occupiesSeat())
+            occupancyByDay.computeIfAbsent(event.date(), date -> new DayOccupancy()).put(event);
+        else {
+            DayOccupancy dayOccupancy = occupancyByDay.get(event.date());
+            if (dayOccupancy != null) dayOccupancy.remove(event.reservationId());
+        }
+    }
+
+    private List<Long> seatNumbers() {
+        List<Long> seatNumbers = new ArrayList<>();
+        for (long seat = 1; seat <= numberOfSeats; seat++) seatNumbers.add(seat);
+        return seatNumbers;
+    }
+
+    private final class DayOccupancy {
+        private final Map<Long, StudentReservationChangedEvent> reservations = new HashMap<>(); //reservation id -> seat and time span
+        private long version;
+
+        private synchronized void put(StudentReservationChangedEvent event) {
+            reservations.put(event.reservationId(), event);
+            version = versionSequence.incrementAndGet();
+        }
+
+        private synchronized void remove(Long reservationId) {
+            if (reservations.remove(reservationId) != null) version = versionSequence.incrementAndGet();
+        }
+
+        private synchronized AvailabilityDto availability(LocalDate date, LocalTime from, LocalTime to) {
+            Map<Long, List<StudentReservationChangedEvent>> reservationsBySeat = new HashMap<>();
+            reservations.values().stream()
+                    .filter(reservation -> reservation.start().isBefore(to) && reservation.end().isAfter(from))
+                    .sorted(comparing(StudentReservationChangedEvent::start))
+                    .forEach(reservation -> reservationsBySeat.computeIfAbsent(reservation.seatNumber(), seat -> new ArrayList<>()).add(reservation));
+
+            List<Long> freeSeats = new ArrayList<>();
+            List<SeatAvailabilityDto> seats = new ArrayList<>();
+            for (Long seat : seatNumbers()) {
+                List<StudentReservationChangedEvent> seatReservations = reservationsBySeat.getOrDefault(seat, List.of());
+                if (seatReservations.isEmpty()) freeSeats.add(seat);
+                seats.add(new SeatAvailabilityDto(seat, freeWindows(seatReservations, from, to)));
+            }
+            return new AvailabilityDto(date, from, to, version, freeSeats, seats);
+        }
+
+        private List<TimeWindowDto> freeWindows(List<StudentReservationChangedEvent> sortedReservations, LocalTime from, LocalTime to) {
+            List<TimeWindowDto> freeWindows = new ArrayList<>();
+            LocalTime windowStart = from;
+            for (StudentReservationChangedEvent reservation : sortedReservations) {
+                if (reservation.start().isAfter(windowStart)) freeWindows.add(new TimeWindowDto(windowStart, reservation.start()));
+                if (reservation.end().isAfter(windowStart)) windowStart = reservation.end();
+            }
+            if (windowStart.isBefore(to)) freeWindows.add(new TimeWindowDto(windowStart, to));
+            return freeWindows;
+        }
+    }
+}
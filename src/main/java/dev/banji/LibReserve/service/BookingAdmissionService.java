@@ -0,0 +1,97 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.exceptions.BookingOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Bounds how many booking evaluations run at once, so an opening rush queues here instead of in the connection pool.
+ * Callers beyond the limit wait in a fair virtual queue; once the queue is deeper than configured, or the estimated
+ * wait exceeds the maximum, they are turned away immediately with their position and an ETA.
+ */
+@Service
+public class BookingAdmissionService {
+    private static final double SMOOTHING = 0.2; //weight of the newest sample in the moving average.
+    private final Semaphore evaluationPermits;
+    private final int maximumConcurrentEvaluations;
+    private final int maximumQueueDepth;
+    private final long maximumWaitInNanos;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong averageEvaluationNanos = new AtomicLong(Duration.ofMillis(50).toNanos());
+    private final Counter shedCounter;
+
+    public BookingAdmissionService(MeterRegistry meterRegistry,
+                                   @Value("${library.properties.bookingAdmission.maximumConcurrentEvaluations}") Integer maximumConcurrentEvaluations,
+                                   @Value("${library.properties.bookingAdmission.maximumQueueDepth}") Integer maximumQueueDepth,
+                                   @Value("${library.properties.bookingAdmission.maximumWaitInMillis}") Long maximumWaitInMillis) {
+        this.evaluationPermits = new Semaphore(maximumConcurrentEvaluations, true);
+        this.maximumConcurrentEvaluations = maximumConcurrentEvaluations;
+        this.maximumQueueDepth = maximumQueueDepth;
+        this.maximumWaitInNanos = Duration.ofMillis(maximumWaitInMillis).toNanos();
+        this.shedCounter = Counter.builder("libreserve.booking.admission.shed").description("Bookings turned away by admission control").register(meterRegistry);
+        Gauge.builder("libreserve.booking.admission.queue.depth", queueDepth, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("libreserve.booking.admission.active", evaluationPermits, permits -> maximumConcurrentEvaluations - permits.availablePermits()).register(meterRegistry);
+    }
+
+    /**
+     * Runs the booking evaluation once a permit is available.
+     *
+     * @throws BookingOverloadedException if the caller would have to queue past the configured depth or wait.
+     */
+    public <T> T admit(Supplier<T> bookingEvaluation) {
+        if (!tryAcquireInTurn()) waitForPermit();
+        long start = System.nanoTime();
+        try {
+            return bookingEvaluation.get();
+        } finally {
+            evaluationPermits.release();
+            long elapsed = System.nanoTime() - start;
+            averageEvaluationNanos.updateAndGet(average -> (long) (average + SMOOTHING * (elapsed - average)));
+        }
+    }
+
+    private boolean tryAcquireInTurn() { //unlike tryAcquire(), a zero timeout keeps the fair order, so a free permit goes to the callers already queued.
+        try {
+            return evaluationPermits.tryAcquire(0, NANOSECONDS);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw shed(queueDepth.get() + 1, estimatedWait(queueDepth.get() + 1));
+        }
+    }
+
+    private void waitForPermit() {
+        int position = queueDepth.incrementAndGet();
+        try {
+            Duration estimatedWait = estimatedWait(position);
+            if (position > maximumQueueDepth || estimatedWait.toNanos() > maximumWaitInNanos)
+                throw shed(position, estimatedWait);
+            if (!evaluationPermits.tryAcquire(maximumWaitInNanos, NANOSECONDS))
+                throw shed(position, estimatedWait(queueDepth.get()));
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw shed(position, estimatedWait(position));
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    private Duration estimatedWait(int position) { //every permit serves one queued caller per average evaluation.
+        return Duration.ofNanos(averageEvaluationNanos.get() * position / maximumConcurrentEvaluations);
+    }
+
+    private BookingOverloadedException shed(int position, Duration estimatedWait) {
+        shedCounter.increment();
+        return new BookingOverloadedException(position, estimatedWait);
+    }
+}
@@ -0,0 +1,31 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.config.observation.RecentTracesHandler;
+import dev.banji.LibReserve.model.LibraryOccupancyQueue;
+import dev.banji.LibReserve.model.dtos.LockDiagnosticsDto;
+import dev.banji.LibReserve.model.dtos.TraceDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Read-only views into the internals of the running instance, for librarians and operators chasing a slowdown.
+ */
+@Service
+@RequiredArgsConstructor
+public class DiagnosticsService {
+    private final LibraryOccupancyQueue libraryOccupancyQueue;
+    private final RecentTracesHandler recentTracesHandler;
+
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
+    public LockDiagnosticsDto occupancyLockDiagnostics() {
+        return libraryOccupancyQueue.lockDiagnostics();
+    }
+
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
+    public List<TraceDto> recentSlowTraces() {
+        return recentTracesHandler.recentSlowTraces();
+    }
+}
@@ -4,19 +4,43 @@ import dev.banji.LibReserve.model.dtos.EmailMessageDto.BulkEmailMessageDto;
 import dev.banji.LibReserve.model.dtos.EmailMessageDto.SingleEmailMessageDto;
 import dev.banji.LibReserve.model.dtos.EmailNotificationDto.BulkEmailNotificationDto;
 import dev.banji.LibReserve.model.dtos.EmailNotificationDto.SingleEmailNotificationDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 @Service
 @RequiredArgsConstructor
 @ConditionalOnProperty(prefix = "library.properties", name = "enableemailservice", havingValue = "true")
 public class EmailService {
     private final JavaMailSender javaMailSender;
+    @Value("${library.properties.bulkEmail.chunkSize}")
+    private Integer chunkSize;
+    @Value("${library.properties.bulkEmail.collapseIntoBcc}")
+    private Boolean collapseIntoBcc;
+
+    @PostConstruct
+    void validateChunkSize() {
+        if (chunkSize == null || chunkSize <= 0)
+            throw new IllegalStateException("library.properties.bulkEmail.chunkSize must be positive, but was " + chunkSize);
+    }
 
     public void sendEmailMessage(@Validated SingleEmailMessageDto singleEmailMessage) {
         SimpleMailMessage message = new SimpleMailMessage();
@@ -26,8 +50,46 @@ public class EmailService {
         javaMailSender.send(message);
     }
 
+    /**
+     * Sends the recipients in chunks. Each chunk is handed to the sender as one array, so it goes out over a single
+     * authenticated SMTP connection instead of one connection per address.
+     * When collapsing into BCC is enabled, each chunk becomes a single message with the chunk as blind copies.
+     */
     public void sendEmailMessage(@Validated BulkEmailMessageDto bulkEmail) {
-        bulkEmail.getTo().forEach(address -> sendEmailMessage(new SingleEmailMessageDto(address, bulkEmail.getSubject(), bulkEmail.getBody())));
+        List<String> recipients = bulkEmail.getTo();
+        for (int chunkStart = 0; chunkStart < recipients.size(); chunkStart += chunkSize)
+            sendEmailChunk(recipients.subList(chunkStart, Math.min(chunkStart + chunkSize, recipients.size())), bulkEmail.getSubject(), bulkEmail.getBody(), new HashSet<>());
+    }
+
+    /**
+     * Sends one chunk, skipping the recipients already in {@code delivered} and adding every recipient it reaches.
+     * A retry with the same set therefore only sends to the recipients the failed attempt did not reach.
+     *
+     * @throws MailSendException if any message of the chunk failed.
+     */
+    public void sendEmailChunk(List<String> chunk, String subject, String body, Set<String> delivered) {
+        List<String> pending = chunk.stream().filter(address -> !delivered.contains(address)).toList();
+        if (pending.isEmpty()) return;
+        if (collapseIntoBcc) { //a single message, it either reaches the whole chunk or nobody.
+            javaMailSender.send(createMimeMessage(null, pending, subject, body));
+            delivered.addAll(pending);
+            return;
+        }
+        Map<MimeMessage, String> recipientByMessage = new LinkedHashMap<>();
+        pending.forEach(address -> recipientByMessage.put(createMimeMessage(address, List.of(), subject, body), address));
+        try {
+            javaMailSender.send(recipientByMessage.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException mailSendException) {
+            recipientByMessage.forEach((message, address) -> {
+                if (!mailSendException.getFailedMessages().containsKey(message)) delivered.add(address);
+            });
+            throw mailSendException;
+        }
+        delivered.addAll(pending);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
     }
 
     public void sendEmailNotification(SingleEmailNotificationDto singleEmailNotification) {
@@ -38,5 +100,17 @@ public class EmailService {
         sendEmailMessage(new BulkEmailMessageDto(bulkEmailNotification.getTo(), bulkEmailNotification.getSubject(), bulkEmailNotification.getBody()));
     }
 
-
-}
\ No newline at end of file
+    private MimeMessage createMimeMessage(String to, List<String> bcc, String subject, String body) {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        try {
+            var helper = new MimeMessageHelper(mimeMessage, UTF_8.name());
+            if (to != null) helper.setTo(to);
+            if (!bcc.isEmpty()) helper.setBcc(bcc.toArray(String[]::new));
+            helper.setSubject(subject);
+            helper.setText(body);
+        } catch (MessagingException messagingException) {
+            throw new MailPreparationException(messagingException);
+        }
+        return mimeMessage;
+    }
+}
@@ -2,6 +2,8 @@ package dev.banji.LibReserve.service;
 
 import dev.banji.LibReserve.config.userDetails.LibrarianSecurityDetails;
 import dev.banji.LibReserve.config.userDetails.StudentSecurityDetails;
+import dev.banji.LibReserve.model.dtos.TokenPairDto;
+import dev.banji.LibReserve.model.enums.UserType;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,24 +17,41 @@ import java.time.Instant;
 import java.util.List;
 
 import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.util.stream.Collectors.joining;
 
 @Service
 @RequiredArgsConstructor
 public class JwtTokenService {
     private final JwtEncoder encoder;
     private final List<Jwt> jwtTokenBlackList;
+    private final RefreshTokenService refreshTokenService;
     @Value("${jwt.expirationTime}")
     private Long expirationTime;
 
     public String generateAccessToken(Authentication authenticatedToken) {
-        return generateAccessToken(authenticatedToken, this.expirationTime);
+        return generateAccessToken(userIdentifier(authenticatedToken), scope(authenticatedToken), this.expirationTime);
     }
 
-    private String generateAccessToken(Authentication authenticatedToken, @NonNull Long expirationTime) {
-        var scope = authenticatedToken.getAuthorities().stream().map(GrantedAuthority::getAuthority).toString();
-        var userIdentifier = authenticatedToken.getPrincipal() instanceof LibrarianSecurityDetails ?
-                (((LibrarianSecurityDetails) authenticatedToken.getPrincipal()).getStaffNumber()) :
-                (((StudentSecurityDetails) authenticatedToken.getPrincipal()).getMatricNumber());
+    /**
+     * Issues an access token together with a new refresh token family. This is the only path that follows a password check.
+     */
+    public TokenPairDto generateTokenPair(Authentication authenticatedToken) {
+        var userIdentifier = userIdentifier(authenticatedToken);
+        var scope = scope(authenticatedToken);
+        var userType = authenticatedToken.getPrincipal() instanceof LibrarianSecurityDetails ? UserType.LIBRARIAN : UserType.STUDENT;
+        String refreshToken = refreshTokenService.issueRefreshToken(userIdentifier, userType, scope);
+        return new TokenPairDto(generateAccessToken(userIdentifier, scope, this.expirationTime), refreshToken);
+    }
+
+    /**
+     * Exchanges a refresh token for a new token pair. No password hashing happens here.
+     */
+    public TokenPairDto refreshAccessToken(String rawRefreshToken) {
+        var rotation = refreshTokenService.rotateRefreshToken(rawRefreshToken);
+        return new TokenPairDto(generateAccessToken(rotation.subject(), rotation.scope(), this.expirationTime), rotation.refreshToken());
+    }
+
+    private String generateAccessToken(String userIdentifier, String scope, @NonNull Long expirationTime) {
         assert userIdentifier != null;
         JwtClaimsSet claims = JwtClaimsSet.builder().issuedAt(Instant.now())
                 .issuer("LibReserve").expiresAt(Instant.now().plus(expirationTime, MINUTES))
@@ -42,7 +61,22 @@ public class JwtTokenService {
         return encoder.encode(encoderParameters).getTokenValue();
     }
 
+    private String userIdentifier(Authentication authenticatedToken) {
+        return authenticatedToken.getPrincipal() instanceof LibrarianSecurityDetails ?
+                (((LibrarianSecurityDetails) authenticatedToken.getPrincipal()).getStaffNumber()) :
+                (((StudentSecurityDetails) authenticatedToken.getPrincipal()).getMatricNumber());
+    }
+
+    private String scope(Authentication authenticatedToken) { //"ROLE_STUDENT" becomes "STUDENT" so the resource server grants "SCOPE_STUDENT"
+        return authenticatedToken.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+                .map(authority -> authority.replaceFirst("^ROLE_", "")).collect(joining(" "));
+    }
+
     public boolean blacklistAccessToken(Jwt jwt) {
         return jwtTokenBlackList.add(jwt);
     }
-}
\ No newline at end of file
+
+    public void revokeRefreshTokens(String userIdentifier) {
+        refreshTokenService.revokeAllRefreshTokens(userIdentifier);
+    }
+}
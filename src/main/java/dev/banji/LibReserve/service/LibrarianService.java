@@ -1,5 +1,6 @@
 package dev.banji.LibReserve.service;
 
+import dev.banji.LibReserve.config.observation.PhaseTracer;
 import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
 import dev.banji.LibReserve.exceptions.*;
 import dev.banji.LibReserve.model.*;
@@ -13,6 +14,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.LocalDate;
@@ -35,6 +37,7 @@ public class LibrarianService {
     private final JwtTokenService jwtTokenService;
     private final LibraryOccupancyQueue libraryOccupancyQueue;
     private final NotificationService notificationService;
+    private final PhaseTracer phaseTracer;
 
     public void signOutLibrarian(JwtAuthenticationToken authentication) {
         var staffNumber = authentication.getName();
@@ -51,18 +54,24 @@ public class LibrarianService {
         }
         //add JWT to blacklist
         boolean blackListed = jwtTokenService.blacklistAccessToken(jwt);
+        jwtTokenService.revokeRefreshTokens(staffNumber);
         if ((wasInSession && !sessionSignedOut) || !blackListed) throw new LibraryRuntimeException();
     }
 
     private Optional<StudentReservation> allowEntry(StudentReservation studentReservation) {
-        if (!studentReservation.getReservationStatus().equals(BOOKED))
-            throw new InvalidReservationException("Expired Reservation");
-        validateEntryTime(studentReservation); //validate the entry time
-        StudentReservation updatedReservationObject = signInStudent(studentReservation); //sign-in reservation...
-        occupancyQueue.isLibraryFull(); //TODO normally this shouldn't throw any exception since the student already has a reservation
-        boolean isCurrentlyInLibrary = occupancyQueue.isUserPresentInLibrary(studentReservation.getStudent().getMatricNumber()).isPresent(); //if the student is already in the library...
-        boolean signedIn = occupancyQueue.updateStudentSession(new CurrentStudentDetailDto(studentReservation.getStudent().getMatricNumber(), updatedReservationObject));
-        return (signedIn && !isCurrentlyInLibrary) ? Optional.of(updatedReservationObject) : Optional.empty();
+        return phaseTracer.trace("entry", () -> {
+            if (!studentReservation.getReservationStatus().equals(BOOKED))
+                throw new InvalidReservationException("Expired Reservation");
+            phaseTracer.trace("entry-time-validation", () -> validateEntryTime(studentReservation)); //validate the entry time
+            StudentReservation updatedReservationObject = phaseTracer.trace("check-in-save", () -> signInStudent(studentReservation)); //sign-in reservation...
+            return phaseTracer.trace("occupancy-update", () -> {
+                boolean isCurrentlyInLibrary = occupancyQueue.isUserPresentInLibrary(studentReservation.getStudent().getMatricNumber()).isPresent(); //if the student is already in the library...
+                if (isCurrentlyInLibrary) return Optional.of(updatedReservationObject); //a walk-in is seated as the reservation is made, a second session would take another place.
+                occupancyQueue.isLibraryFull(); //TODO normally this shouldn't throw any exception since the student already has a reservation
+                boolean signedIn = occupancyQueue.updateStudentSession(new CurrentStudentDetailDto(studentReservation.getStudent().getMatricNumber(), updatedReservationObject));
+                return signedIn ? Optional.of(updatedReservationObject) : Optional.<StudentReservation>empty();
+            });
+        });
     }
 
     private StudentReservation signInStudent(StudentReservation studentReservation) {
@@ -93,33 +102,37 @@ public class LibrarianService {
         });
     }
 
+    @Transactional
     public void invalidateStudentSessionByReservationCode(String reservationCode) {
         StudentReservation studentReservation = occupancyQueue.isStudentPresentInLibrary(reservationCode).orElseThrow(() -> {
             throw new StudentNotInLibraryException();
         });
-        kickStudentOut(studentReservation);
+        kickStudentOut(studentReservation, true);
     }
 
+    @Transactional
     public void invalidateStudentSessionByMatricNumber(String matricNumber) {
         StudentReservation studentReservation = (StudentReservation) occupancyQueue.isUserPresentInLibrary(matricNumber).orElseThrow(() -> {
             throw new StudentNotInLibraryException();
         });
-        kickStudentOut(studentReservation);
+        kickStudentOut(studentReservation, true);
     }
 
+    @Transactional //the notification outbox row commits or rolls back with this change
     public void blacklistStudent(String matricNumber) {
         Student student = studentRepository.findByMatricNumber(matricNumber).orElseThrow(() -> {
             throw UserNotFoundException.StudentNotFoundException();
         });
         student.getAccount().setNotLocked(false); //lock account
+        jwtTokenService.revokeRefreshTokens(matricNumber); //a locked account must not be able to mint new access tokens
         if (occupancyQueue.isUserPresentInLibrary(matricNumber).isPresent()) {
-            student.getStudentReservationList().add(kickStudentOut((StudentReservation) occupancyQueue.isUserPresentInLibrary(matricNumber).get()));
+            student.getStudentReservationList().add(kickStudentOut((StudentReservation) occupancyQueue.isUserPresentInLibrary(matricNumber).get(), false)); //the blacklist notice covers the kick out.
         }
         studentRepository.save(student);
-        notificationService.studentBlackListNotification(student.getEmailAddress());
+        notificationService.studentBlackListNotification(matricNumber, student.getEmailAddress());
     }
 
-    private StudentReservation kickStudentOut(StudentReservation studentReservation) {
+    private StudentReservation kickStudentOut(StudentReservation studentReservation, boolean notify) {
         String matricNumber = studentReservation.getStudent().getMatricNumber();
         boolean isPresent = occupancyQueue.isUserPresentInLibrary(studentReservation.getStudent().getMatricNumber()).isPresent();
         if (!isPresent) {
@@ -131,8 +144,10 @@ public class LibrarianService {
 
         boolean reservationInvalidated = occupancyQueue.signOutStudent(new CurrentStudentDetailDto(studentReservation.getStudent().getMatricNumber(), studentReservation));
         if (!reservationInvalidated) throw new LibraryRuntimeException();
+        studentReservation = studentReservationRepository.save(studentReservation); //persisted in the same transaction as the notification below
 
-        notificationService.studentKickedOutNotification(matricNumber);
+        if (notify)
+            notificationService.studentKickedOutNotification(matricNumber, studentReservation.getStudent().getEmailAddress());
         return studentReservation;
     }
 
@@ -26,10 +26,15 @@ public class LibraryManagementService {
     private final LibraryOccupancyQueue libraryOccupancyQueue;
     private final LibraryConfigurationProperties libraryConfigurationProperties;
     private final NotificationService notificationService;
+    private final ReservationMetrics reservationMetrics;
 
     // check for students that have exhausted the time allocated.
     @Scheduled(fixedRate = 1, timeUnit = MINUTES)
     public void automaticStudentSignOutService() {
+        reservationMetrics.timeJob("automaticStudentSignOut", this::signOutStudentsWithExhaustedTime);
+    }
+
+    private void signOutStudentsWithExhaustedTime() {
         if (libraryOccupancyQueue.isEmpty()) return; //no student is currently in the library ...
 
         libraryOccupancyQueue.stream().filter(inmemoryUser -> inmemoryUser instanceof CurrentStudentDetailDto) //this method is for students alone.
@@ -68,6 +73,10 @@ public class LibraryManagementService {
     // check for reservations that needs to be updated to "EXPIRED" every one minute...
     // I need to implement a service that invalidates reservations esp when their time has passed
     public void invalidateReservationService() {
+        reservationMetrics.timeJob("invalidateReservation", this::expireMissedReservations);
+    }
+
+    private void expireMissedReservations() {
         List<StudentReservation> bookedReservationListForToday = studentReservationRepository.findByDateReservationWasMadeForAndReservationStatus(LocalDate.now(), BOOKED);
 
         //if empty
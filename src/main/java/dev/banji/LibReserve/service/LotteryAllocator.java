@@ -0,0 +1,111 @@
+package dev.banji.LibReserve.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Allocates a batch of lottery entries to seats in one pass. The entries are shuffled, so the order of arrival within
+ * a draw gives no advantage, and then each entry in turn gets the first seat that is free for its whole time span.
+ * Seat occupancy is kept as one bit per minute per seat per day, so checking and claiming a seat is a couple of
+ * word operations on a {@link BitSet}.
+ */
+public final class LotteryAllocator {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private final int numberOfSeats;
+    private final int maximumBookingsPerDay;
+    private final Map<LocalDate, BitSet[]> seatMaps = new HashMap<>(); //per day, one bit per minute for every seat (index 0 is seat 1).
+    private final Map<StudentDay, Integer> bookingsPerStudentDay = new HashMap<>();
+    private final Map<StudentDay, BitSet> studentTimelines = new HashMap<>(); //so a student never wins two overlapping slots.
+
+    /**
+     * @param maximumBookingsPerDay the per-student limit, counting bookings that already exist.
+     */
+    public LotteryAllocator(int numberOfSeats, int maximumBookingsPerDay) {
+        this.numberOfSeats = numberOfSeats;
+        this.maximumBookingsPerDay = maximumBookingsPerDay;
+    }
+
+    /**
+     * Marks a seat, and the time of the student holding it, as taken by an existing booking.
+     */
+    public void occupy(String matricNumber, LocalDate date, long seatNumber, LocalTime start, LocalTime end) {
+        int startMinute = minuteOf(start), endMinute = endMinuteOf(start, end);
+        studentTimelines.computeIfAbsent(new StudentDay(matricNumber, date), ignored -> new BitSet(MINUTES_PER_DAY)).set(startMinute, endMinute);
+        if (seatNumber < 1 || seatNumber > numberOfSeats) return;
+        seatMap(date)[(int) seatNumber - 1].set(startMinute, endMinute);
+    }
+
+    public void existingBookings(String matricNumber, LocalDate date, int numberOfBookings) {
+        bookingsPerStudentDay.merge(new StudentDay(matricNumber, date), numberOfBookings, Integer::sum);
+    }
+
+    public List<Allocation> allocate(List<LotteryEntry> entries, Random random) {
+        List<LotteryEntry> drawOrder = new ArrayList<>(entries);
+        Collections.shuffle(drawOrder, random);
+        List<Allocation> allocations = new ArrayList<>(drawOrder.size());
+        for (LotteryEntry entry : drawOrder) allocations.add(allocate(entry));
+        return allocations;
+    }
+
+    private Allocation allocate(LotteryEntry entry) {
+        var studentDay = new StudentDay(entry.matricNumber(), entry.date());
+        if (bookingsPerStudentDay.getOrDefault(studentDay, 0) >= maximumBookingsPerDay)
+            return new Allocation(entry, 0, Outcome.LIMIT_REACHED);
+
+        int startMinute = minuteOf(entry.start());
+        int endMinute = endMinuteOf(entry.start(), entry.end());
+        BitSet studentTimeline = studentTimelines.computeIfAbsent(studentDay, ignored -> new BitSet(MINUTES_PER_DAY));
+        if (isTaken(studentTimeline, startMinute, endMinute)) return new Allocation(entry, 0, Outcome.OVERLAPS_OWN_BOOKING);
+
+        BitSet[] seatMap = seatMap(entry.date());
+        for (int seat = 0; seat < numberOfSeats; seat++) {
+            if (isTaken(seatMap[seat], startMinute, endMinute)) continue;
+            seatMap[seat].set(startMinute, endMinute);
+            studentTimeline.set(startMinute, endMinute);
+            bookingsPerStudentDay.merge(studentDay, 1, Integer::sum);
+            return new Allocation(entry, seat + 1, Outcome.WON);
+        }
+        return new Allocation(entry, 0, Outcome.NO_SEAT);
+    }
+
+    private static boolean isTaken(BitSet timeline, int startMinute, int endMinute) {
+        int firstTakenMinute = timeline.nextSetBit(startMinute);
+        return firstTakenMinute >= 0 && firstTakenMinute < endMinute;
+    }
+
+    private BitSet[] seatMap(LocalDate date) {
+        return seatMaps.computeIfAbsent(date, ignored -> {
+            BitSet[] seatMap = new BitSet[numberOfSeats];
+            for (int seat = 0; seat < numberOfSeats; seat++) seatMap[seat] = new BitSet(MINUTES_PER_DAY);
+            return seatMap;
+        });
+    }
+
+    private static int minuteOf(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static int endMinuteOf(LocalTime start, LocalTime end) { //a span that wraps past midnight runs to the end of the day.
+        return end.isAfter(start) ? Math.max(minuteOf(end), minuteOf(start) + 1) : MINUTES_PER_DAY;
+    }
+
+    public record LotteryEntry(String matricNumber, LocalDate date, LocalTime start, LocalTime end) {
+        public boolean overlaps(LotteryEntry other) {
+            return matricNumber.equals(other.matricNumber) && date.equals(other.date) && start.isBefore(other.end) && other.start.isBefore(end);
+        }
+    }
+
+    /**
+     * @param seatNumber the seat won, 0 if the entry lost.
+     */
+    public record Allocation(LotteryEntry entry, long seatNumber, Outcome outcome) {
+    }
+
+    public enum Outcome {
+        WON, NO_SEAT, LIMIT_REACHED, OVERLAPS_OWN_BOOKING
+    }
+
+    private record StudentDay(String matricNumber, LocalDate date) {
+    }
+}
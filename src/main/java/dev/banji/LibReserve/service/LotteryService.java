@@ -0,0 +1,150 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
+import dev.banji.LibReserve.exceptions.*;
+import dev.banji.LibReserve.model.Student;
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.dtos.BatchReservationDto.ProposedSlotDto;
+import dev.banji.LibReserve.model.dtos.LotteryEntryDto;
+import dev.banji.LibReserve.repository.StudentRepository;
+import dev.banji.LibReserve.repository.StudentReservationRepository;
+import dev.banji.LibReserve.service.LotteryAllocator.Allocation;
+import dev.banji.LibReserve.service.LotteryAllocator.LotteryEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.function.Function;
+
+import static dev.banji.LibReserve.model.enums.ReservationStatus.BOOKED;
+import static dev.banji.LibReserve.service.LotteryAllocator.Outcome.WON;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Opt-in lottery allocation for high-demand slots. Entries are collected for one draw interval and then allocated
+ * together by the {@link LotteryAllocator}, instead of first come first served through the seat resolver.
+ * Winners and losers are told through notifications written in the same transaction as the reservations.
+ */
+@Slf4j
+@Service
+public class LotteryService {
+    private final LibraryConfigurationProperties libraryConfigurationProperties;
+    private final StudentRepository studentRepository;
+    private final StudentReservationRepository studentReservationRepository;
+    private final ReservationCodeService reservationCodeService;
+    private final ReservationOverlapChecker reservationOverlapChecker;
+    private final ObjectProvider<NotificationService> notificationServiceProvider;
+    private final TransactionTemplate transactionTemplate;
+    private final AdvanceBookingLock advanceBookingLock;
+    private final Map<String, List<LotteryEntry>> pendingEntries = new HashMap<>(); //matric number -> entries for the next draw, guarded by itself.
+    private final SecureRandom random = new SecureRandom();
+    private final boolean enabled;
+    private final long drawIntervalInMillis;
+    private volatile Instant nextDrawAt = Instant.now();
+
+    public LotteryService(LibraryConfigurationProperties libraryConfigurationProperties, StudentRepository studentRepository,
+                          StudentReservationRepository studentReservationRepository, ReservationCodeService reservationCodeService,
+                          ReservationOverlapChecker reservationOverlapChecker, ObjectProvider<NotificationService> notificationServiceProvider,
+                          TransactionTemplate transactionTemplate, AdvanceBookingLock advanceBookingLock,
+                          @Value("${library.properties.lottery.enabled}") Boolean enabled,
+                          @Value("${library.properties.lottery.drawIntervalInMillis}") Long drawIntervalInMillis) {
+        this.libraryConfigurationProperties = libraryConfigurationProperties;
+        this.studentRepository = studentRepository;
+        this.studentReservationRepository = studentReservationRepository;
+        this.reservationCodeService = reservationCodeService;
+        this.reservationOverlapChecker = reservationOverlapChecker;
+        this.notificationServiceProvider = notificationServiceProvider;
+        this.transactionTemplate = transactionTemplate;
+        this.advanceBookingLock = advanceBookingLock;
+        this.enabled = enabled;
+        this.drawIntervalInMillis = drawIntervalInMillis;
+    }
+
+    public LotteryEntryDto enter(String matricNumber, ProposedSlotDto proposedSlot) {
+        if (!enabled) throw new LotteryNotEnabledException();
+        if (!libraryConfigurationProperties.getAcceptingBookings())
+            throw LibraryClosedException.LibraryNotOperationalException();
+        if (!libraryConfigurationProperties.getAllowAdvancedBookings()) throw new AdvancedBookingNotPermittedException();
+        if (!proposedSlot.proposedDateAndTime().toLocalDate().isAfter(LocalDate.now()))
+            throw new AdvancedBookingRequiredException();
+        if (proposedSlot.duration().toMinutes() > libraryConfigurationProperties.getBookingTimeAllowedInMinutes())
+            throw new BookingTimeExceedsLimitException(libraryConfigurationProperties.getBookingTimeAllowedInMinutes());
+
+        LocalTime start = proposedSlot.proposedDateAndTime().toLocalTime();
+        LocalTime end = start.plus(proposedSlot.duration());
+        if (!end.isAfter(start)) throw new InvalidReservationException("The slot must end after it starts, on the same day.");
+
+        var entry = new LotteryEntry(matricNumber, proposedSlot.proposedDateAndTime().toLocalDate(), start, end);
+        if (!addPendingEntry(entry)) throw new DuplicateLotteryEntryException(); //one chance per slot and draw.
+        return new LotteryEntryDto(proposedSlot.proposedDateAndTime(), proposedSlot.duration(), nextDrawAt);
+    }
+
+    @Scheduled(fixedDelayString = "${library.properties.lottery.drawIntervalInMillis}")
+    public void draw() {
+        nextDrawAt = Instant.now().plusMillis(drawIntervalInMillis);
+        List<LotteryEntry> entries;
+        synchronized (pendingEntries) {
+            entries = pendingEntries.values().stream().flatMap(List::stream).toList();
+            pendingEntries.clear();
+        }
+        if (entries.isEmpty()) return;
+        try { //committed before first come first served bookings can read the day again.
+            advanceBookingLock.locked(() -> transactionTemplate.executeWithoutResult(status -> allocateAndBook(entries)));
+        } catch (RuntimeException drawException) { //the entries go into the next draw, unless the student entered an overlapping slot since.
+            log.error("Lottery draw of {} entries failed", entries.size(), drawException);
+            entries.forEach(this::addPendingEntry);
+        }
+    }
+
+    private boolean addPendingEntry(LotteryEntry entry) {
+        synchronized (pendingEntries) {
+            List<LotteryEntry> entriesOfStudent = pendingEntries.computeIfAbsent(entry.matricNumber(), ignored -> new ArrayList<>());
+            if (entriesOfStudent.stream().anyMatch(entry::overlaps)) return false;
+            return entriesOfStudent.add(entry);
+        }
+    }
+
+    private void allocateAndBook(List<LotteryEntry> entries) {
+        Set<LocalDate> dates = entries.stream().map(LotteryEntry::date).collect(toSet());
+        int maximumBookingsPerDay = !libraryConfigurationProperties.getAllowMultipleReservations() ? 1 :
+                libraryConfigurationProperties.getEnableLimitPerDay() ? libraryConfigurationProperties.getMaximumLimitPerDay().intValue() : Integer.MAX_VALUE;
+        var allocator = new LotteryAllocator(libraryConfigurationProperties.getNumberOfSeats().intValue(), maximumBookingsPerDay);
+        studentReservationRepository.findWithStudentByDateReservationWasMadeForInAndReservationStatus(dates, BOOKED).forEach(reservation ->
+                allocator.occupy(reservation.getStudent().getMatricNumber(), reservation.getDateReservationWasMadeFor(), reservation.getSeatNumber(), reservation.getCheckInTime(), reservationOverlapChecker.estimatedEndTime(reservation)));
+        studentReservationRepository.countReservationsPerStudentAndDate(dates).forEach(count ->
+                allocator.existingBookings(count.getMatricNumber(), count.getDate(), (int) count.getNumberOfReservations()));
+
+        long start = System.nanoTime();
+        List<Allocation> allocations = allocator.allocate(entries, random);
+        log.info("Lottery allocated {} entries in {} ms", entries.size(), (System.nanoTime() - start) / 1_000_000);
+
+        Set<String> winners = allocations.stream().filter(allocation -> allocation.outcome() == WON).map(allocation -> allocation.entry().matricNumber()).collect(toSet());
+        Map<String, Student> studentsByMatricNumber = studentRepository.findByMatricNumberIn(winners).stream().collect(toMap(Student::getMatricNumber, Function.identity()));
+        List<StudentReservation> reservations = new ArrayList<>();
+        NotificationService notificationService = notificationServiceProvider.getIfAvailable();
+
+        for (Allocation allocation : allocations) {
+            LotteryEntry entry = allocation.entry();
+            Student student = studentsByMatricNumber.get(entry.matricNumber());
+            if (allocation.outcome() != WON || student == null) {
+                if (notificationService != null) notificationService.lotteryLostNotification(entry.matricNumber());
+                continue;
+            }
+            StudentReservation reservation = StudentReservation.builder().checkInTime(entry.start()).seatNumber(allocation.seatNumber()).intendedStay(Duration.between(entry.start(), entry.end())).reservationCreationDate(LocalDate.now()).reservationCreationTime(LocalTime.now()).dateReservationWasMadeFor(entry.date()).timeReservationWasMadeFor(entry.start()).reservationStatus(BOOKED).student(student).reservationCode(reservationCodeService.generateNewReservationCode()).build();
+            reservations.add(reservation);
+            if (notificationService != null)
+                notificationService.lotteryWonNotification(entry.matricNumber(), reservation.getReservationCode(), allocation.seatNumber());
+        }
+        studentReservationRepository.saveAll(reservations);
+    }
+}
@@ -0,0 +1,212 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.config.observation.PhaseTracer;
+import dev.banji.LibReserve.exceptions.LibraryRuntimeException;
+import dev.banji.LibReserve.model.enums.BackpressurePolicy;
+import dev.banji.LibReserve.model.enums.NotificationChannel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * Delivers notifications off the request path. Notifications are enqueued into a bounded queue that is drained by a
+ * fixed pool of workers; failed deliveries are retried with exponential backoff and full jitter.
+ */
+@Slf4j
+@Service
+public class NotificationDispatcher {
+    private final ThreadPoolExecutor workerPool;
+    private final ScheduledExecutorService retryScheduler;
+    private final int maximumRetries;
+    private final long retryBaseDelayInMillis;
+    private final PhaseTracer phaseTracer;
+    private final Map<NotificationChannel, Timer> latencyTimers = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Timer> deliveryTimers = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Counter> droppedCounters = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Counter> retriedCounters = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Counter> failedCounters = new EnumMap<>(NotificationChannel.class);
+
+    public NotificationDispatcher(MeterRegistry meterRegistry, PhaseTracer phaseTracer,
+                                  @Value("${library.properties.notificationDispatcher.queueCapacity}") Integer queueCapacity,
+                                  @Value("${library.properties.notificationDispatcher.workerThreads}") Integer workerThreads,
+                                  @Value("${library.properties.notificationDispatcher.backpressurePolicy}") BackpressurePolicy backpressurePolicy,
+                                  @Value("${library.properties.notificationDispatcher.offerTimeoutInMillis}") Long offerTimeoutInMillis,
+                                  @Value("${library.properties.notificationDispatcher.maximumRetries}") Integer maximumRetries,
+                                  @Value("${library.properties.notificationDispatcher.retryBaseDelayInMillis}") Long retryBaseDelayInMillis) {
+        this.maximumRetries = maximumRetries;
+        this.phaseTracer = phaseTracer;
+        this.retryBaseDelayInMillis = retryBaseDelayInMillis;
+        this.workerPool = new ThreadPoolExecutor(workerThreads, workerThreads, 0, MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("notification-worker-"),
+                rejectionHandler(backpressurePolicy, offerTimeoutInMillis));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("notification-retry-"));
+
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            String channelTag = channel.name().toLowerCase();
+            latencyTimers.put(channel, Timer.builder("libreserve.notifications.latency").description("Time from enqueue to successful delivery").tag("channel", channelTag).publishPercentileHistogram().register(meterRegistry));
+            deliveryTimers.put(channel, Timer.builder("libreserve.notifications.delivery").description("Time spent in a single delivery attempt").tag("channel", channelTag).publishPercentileHistogram().register(meterRegistry));
+            droppedCounters.put(channel, Counter.builder("libreserve.notifications.dropped").tag("channel", channelTag).register(meterRegistry));
+            retriedCounters.put(channel, Counter.builder("libreserve.notifications.retried").tag("channel", channelTag).register(meterRegistry));
+            failedCounters.put(channel, Counter.builder("libreserve.notifications.failed").tag("channel", channelTag).register(meterRegistry));
+        }
+        Gauge.builder("libreserve.notifications.queue.size", workerPool, executor -> executor.getQueue().size()).register(meterRegistry);
+    }
+
+    /**
+     * Enqueues a delivery and returns immediately.
+     *
+     * @return a future that completes once the delivery succeeds, or completes exceptionally once it is dropped or all retries are exhausted.
+     */
+    public CompletableFuture<Void> dispatch(NotificationChannel channel, String recipient, Runnable delivery) {
+        var deliveryAttempt = new DeliveryAttempt(channel, recipient, delivery, System.nanoTime(), 0, new CompletableFuture<>());
+        submit(deliveryAttempt);
+        return deliveryAttempt.completion();
+    }
+
+    private void submit(DeliveryAttempt deliveryAttempt) {
+        try {
+            workerPool.execute(deliveryAttempt);
+        } catch (RejectedExecutionException rejectedExecutionException) { //only reached once the pool is shutting down.
+            drop(deliveryAttempt);
+        }
+    }
+
+    private void retryOrFail(DeliveryAttempt deliveryAttempt, RuntimeException cause) {
+        if (deliveryAttempt.attempt() >= maximumRetries) {
+            failedCounters.get(deliveryAttempt.channel()).increment();
+            log.warn("Giving up on {} notification to {} after {} attempts", deliveryAttempt.channel(), deliveryAttempt.recipient(), deliveryAttempt.attempt() + 1, cause);
+            deliveryAttempt.completion().completeExceptionally(cause);
+            return;
+        }
+        retriedCounters.get(deliveryAttempt.channel()).increment();
+        long backoffInMillis = retryBaseDelayInMillis << Math.min(deliveryAttempt.attempt(), 20);
+        long jitteredDelayInMillis = ThreadLocalRandom.current().nextLong(backoffInMillis + 1); //full jitter
+        try {
+            retryScheduler.schedule(() -> submit(deliveryAttempt.nextAttempt()), jitteredDelayInMillis, MILLISECONDS);
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            drop(deliveryAttempt);
+        }
+    }
+
+    private void drop(DeliveryAttempt deliveryAttempt) {
+        droppedCounters.get(deliveryAttempt.channel()).increment();
+        deliveryAttempt.completion().completeExceptionally(new LibraryRuntimeException("Notification dropped, the dispatcher queue is full."));
+    }
+
+    private RejectedExecutionHandler rejectionHandler(BackpressurePolicy backpressurePolicy, long offerTimeoutInMillis) {
+        return switch (backpressurePolicy) {
+            case BLOCK -> (runnable, executor) -> {
+                try {
+                    if (!executor.isShutdown() && executor.getQueue().offer(runnable, offerTimeoutInMillis, MILLISECONDS))
+                        return;
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                drop((DeliveryAttempt) runnable);
+            };
+            case DROP_NEWEST -> (runnable, executor) -> drop((DeliveryAttempt) runnable);
+            case DROP_OLDEST -> (runnable, executor) -> {
+                if (executor.isShutdown()) {
+                    drop((DeliveryAttempt) runnable);
+                    return;
+                }
+                var oldest = executor.getQueue().poll();
+                if (oldest != null) drop((DeliveryAttempt) oldest);
+                executor.execute(runnable);
+            };
+            case CALLER_RUNS -> (runnable, executor) -> {
+                if (executor.isShutdown()) drop((DeliveryAttempt) runnable);
+                else runnable.run();
+            };
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(10, SECONDS))
+            log.warn("{} notifications were still queued at shutdown", workerPool.shutdownNow().size());
+    }
+
+    private void deliver(DeliveryAttempt deliveryAttempt) {
+        long start = System.nanoTime();
+        try {
+            phaseTracer.trace("notification-send." + deliveryAttempt.channel().name().toLowerCase(), deliveryAttempt.delivery());
+        } catch (RuntimeException deliveryException) {
+            deliveryTimers.get(deliveryAttempt.channel()).record(System.nanoTime() - start, NANOSECONDS);
+            retryOrFail(deliveryAttempt, deliveryException);
+            return;
+        }
+        long end = System.nanoTime();
+        deliveryTimers.get(deliveryAttempt.channel()).record(end - start, NANOSECONDS);
+        latencyTimers.get(deliveryAttempt.channel()).record(end - deliveryAttempt.enqueuedAtNanos(), NANOSECONDS);
+        deliveryAttempt.completion().complete(null);
+    }
+
+    /**
+     * A single queued attempt. It is a {@link Runnable} so that the rejection handlers can recover it from the executor queue.
+     */
+    private final class DeliveryAttempt implements Runnable {
+        private final NotificationChannel channel;
+        private final String recipient;
+        private final Runnable delivery;
+        private final long enqueuedAtNanos;
+        private final int attempt;
+        private final CompletableFuture<Void> completion;
+
+        private DeliveryAttempt(NotificationChannel channel, String recipient, Runnable delivery, long enqueuedAtNanos, int attempt, CompletableFuture<Void> completion) {
+            this.channel = channel;
+            this.recipient = recipient;
+            this.delivery = delivery;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+            this.attempt = attempt;
+            this.completion = completion;
+        }
+
+        NotificationChannel channel() {
+            return channel;
+        }
+
+        String recipient() {
+            return recipient;
+        }
+
+        Runnable delivery() {
+            return delivery;
+        }
+
+        long enqueuedAtNanos() {
+            return enqueuedAtNanos;
+        }
+
+        int attempt() {
+            return attempt;
+        }
+
+        CompletableFuture<Void> completion() {
+            return completion;
+        }
+
+        DeliveryAttempt nextAttempt() {
+            return new DeliveryAttempt(channel, recipient, delivery, enqueuedAtNanos, attempt + 1, completion);
+        }
+
+        @Override
+        public void run() {
+            deliver(this);
+        }
+    }
+}
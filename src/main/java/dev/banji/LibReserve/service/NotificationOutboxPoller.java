@@ -0,0 +1,82 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.model.NotificationOutbox;
+import dev.banji.LibReserve.model.enums.NotificationChannel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.stream.Collectors.*;
+
+/**
+ * Moves committed outbox rows to the notification dispatcher. Several instances can poll the same table.
+ * Rows claimed together for the same recipient and channel are merged into one digest, and each digest has to pass
+ * the recipient's rate limit; past it, only the account notices are delivered and the rest is suppressed.
+ */
+@Service
+@ConditionalOnProperty(prefix = "library.properties", name = "enablenotificationservice", havingValue = "true")
+public class NotificationOutboxPoller {
+    private final NotificationOutboxService notificationOutboxService;
+    private final NotificationService notificationService;
+    private final NotificationRateLimiter notificationRateLimiter;
+    private final Map<NotificationChannel, Counter> mergedCounters = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Counter> suppressedCounters = new EnumMap<>(NotificationChannel.class);
+
+    public NotificationOutboxPoller(NotificationOutboxService notificationOutboxService, NotificationService notificationService,
+                                    NotificationRateLimiter notificationRateLimiter, MeterRegistry meterRegistry) {
+        this.notificationOutboxService = notificationOutboxService;
+        this.notificationService = notificationService;
+        this.notificationRateLimiter = notificationRateLimiter;
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            String channelTag = channel.name().toLowerCase();
+            mergedCounters.put(channel, Counter.builder("libreserve.notifications.merged").description("Notifications folded into another notification's digest").tag("channel", channelTag).register(meterRegistry));
+            suppressedCounters.put(channel, Counter.builder("libreserve.notifications.suppressed").description("Notifications dropped by the per recipient rate limit").tag("channel", channelTag).register(meterRegistry));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.properties.notificationOutbox.pollIntervalInMillis}")
+    public void deliverPendingNotifications() {
+        Map<RecipientKey, List<NotificationOutbox>> claimedByRecipient = notificationOutboxService.claimBatch().stream()
+                .collect(groupingBy(notification -> new RecipientKey(notification.getChannel(), notification.getRecipient()), LinkedHashMap::new, toList()));
+        claimedByRecipient.forEach((recipientKey, claimedList) -> {
+            List<NotificationOutbox> deliveredList = claimedList;
+            if (!notificationRateLimiter.tryAcquire(recipientKey.channel(), recipientKey.recipient())) {
+                Map<Boolean, List<NotificationOutbox>> byAccountNotice = claimedList.stream().collect(partitioningBy(NotificationOutbox::isAccountNotice));
+                suppressedCounters.get(recipientKey.channel()).increment(byAccountNotice.get(false).size());
+                notificationOutboxService.markSuppressed(byAccountNotice.get(false));
+                deliveredList = byAccountNotice.get(true);
+                if (deliveredList.isEmpty()) return;
+            }
+            List<NotificationOutbox> digestedList = deliveredList;
+            mergedCounters.get(recipientKey.channel()).increment(digestedList.size() - 1);
+            Digest digest = Digest.of(digestedList);
+            notificationService.deliver(recipientKey.channel(), recipientKey.recipient(), digest.subject(), digest.body()).whenComplete((ignored, deliveryException) -> {
+                if (deliveryException == null) notificationOutboxService.markSent(digestedList);
+                else notificationOutboxService.markFailed(digestedList);
+            });
+        });
+    }
+
+    @Scheduled(fixedRate = 1, timeUnit = HOURS)
+    public void purgeSentNotifications() {
+        notificationOutboxService.purgeSentNotifications();
+        notificationRateLimiter.evictFullBuckets();
+    }
+
+    private record RecipientKey(NotificationChannel channel, String recipient) {
+    }
+
+    private record Digest(String subject, String body) {
+        private static Digest of(List<NotificationOutbox> notificationList) { //identical notifications are only listed once.
+            List<Digest> distinctList = notificationList.stream().map(notification -> new Digest(notification.getSubject(), notification.getBody())).distinct().toList();
+            if (distinctList.size() == 1) return distinctList.get(0);
+            String body = distinctList.stream().map(digest -> digest.subject() + "\n" + digest.body()).collect(joining("\n\n"));
+            return new Digest("You have " + distinctList.size() + " new library notifications", body);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.model.NotificationOutbox;
+import dev.banji.LibReserve.model.enums.NotificationChannel;
+import dev.banji.LibReserve.repository.NotificationOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static dev.banji.LibReserve.model.enums.OutboxStatus.*;
+import static java.time.temporal.ChronoUnit.HOURS;
+import static java.time.temporal.ChronoUnit.SECONDS;
+
+/**
+ * Bookkeeping for the notification outbox. Every state change of a row is guarded by the claim it was made under,
+ * so each row is marked as sent exactly once even when leases expire and another instance picks it up.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxService {
+    private final String instanceId = UUID.randomUUID().toString();
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    @Value("${library.properties.notificationOutbox.batchSize}")
+    private Integer batchSize;
+    @Value("${library.properties.notificationOutbox.leaseInSeconds}")
+    private Long leaseInSeconds;
+    @Value("${library.properties.notificationOutbox.maximumAttempts}")
+    private Integer maximumAttempts;
+    @Value("${library.properties.notificationOutbox.retentionInHours}")
+    private Long retentionInHours;
+    @Value("${library.properties.notificationOutbox.coalescingWindowInMillis}")
+    private Long coalescingWindowInMillis;
+
+    /**
+     * Joins the caller's transaction, so the row only becomes visible if the surrounding change commits.
+     */
+    @Transactional
+    public void enqueue(NotificationChannel channel, String recipient, String subject, String body, boolean accountNotice) {
+        notificationOutboxRepository.save(new NotificationOutbox(channel, recipient, subject, body, accountNotice));
+    }
+
+    /**
+     * Claims the next batch under a lease held by this instance. The row locks are released when this commits;
+     * from then on the lease keeps other instances away until it runs out.
+     * A recipient's pending rows are claimed together once the oldest of them is older than the coalescing window, so
+     * every notification fired at the recipient within that window ends up in the same batch and is merged.
+     */
+    @Transactional
+    public List<NotificationOutbox> claimBatch() {
+        Instant now = Instant.now();
+        Instant settledBefore = now.minusMillis(coalescingWindowInMillis);
+        List<NotificationOutbox> claimableList = notificationOutboxRepository.findClaimable(PENDING, CLAIMED, settledBefore, now, PageRequest.of(0, batchSize));
+        claimableList.forEach(notification -> {
+            notification.setStatus(CLAIMED);
+            notification.setClaimedBy(instanceId);
+            notification.setClaimedUntil(now.plus(leaseInSeconds, SECONDS));
+            notification.setAttempts(notification.getAttempts() + 1);
+        });
+        return notificationOutboxRepository.saveAll(claimableList);
+    }
+
+    @Transactional
+    public void markSent(List<NotificationOutbox> claimedNotificationList) {
+        claimedNotificationList.forEach(claimedNotification -> notificationOutboxRepository.findById(claimedNotification.getId()).filter(notification -> isSameClaim(notification, claimedNotification)).ifPresent(notification -> {
+            notification.setStatus(SENT);
+            notification.setSentAt(Instant.now());
+            notification.setClaimedUntil(null);
+        }));
+    }
+
+    @Transactional
+    public void markSuppressed(List<NotificationOutbox> claimedNotificationList) {
+        claimedNotificationList.forEach(claimedNotification -> notificationOutboxRepository.findById(claimedNotification.getId()).filter(notification -> isSameClaim(notification, claimedNotification)).ifPresent(notification -> {
+            notification.setStatus(SUPPRESSED);
+            notification.setClaimedBy(null);
+            notification.setClaimedUntil(null);
+        }));
+    }
+
+    @Transactional
+    public void markFailed(List<NotificationOutbox> claimedNotificationList) {
+        claimedNotificationList.forEach(claimedNotification -> notificationOutboxRepository.findById(claimedNotification.getId()).filter(notification -> isSameClaim(notification, claimedNotification)).ifPresent(notification -> {
+            if (notification.getAttempts() >= maximumAttempts) {
+                log.warn("Notification {} to {} failed after {} attempts", notification.getId(), notification.getRecipient(), notification.getAttempts());
+                notification.setStatus(FAILED);
+            } else notification.setStatus(PENDING); //released for the next poll.
+            notification.setClaimedBy(null);
+            notification.setClaimedUntil(null);
+        }));
+    }
+
+    @Transactional
+    public int purgeSentNotifications() {
+        Instant retainedSince = Instant.now().minus(retentionInHours, HOURS);
+        return notificationOutboxRepository.deleteByStatusAndSentAtBefore(SENT, retainedSince) + notificationOutboxRepository.deleteByStatusAndCreatedAtBefore(SUPPRESSED, retainedSince);
+    }
+
+    private boolean isSameClaim(NotificationOutbox notification, NotificationOutbox claimedNotification) { //a stale claim must not overwrite a newer one.
+        return notification.getStatus() == CLAIMED && instanceId.equals(notification.getClaimedBy()) && notification.getAttempts() == claimedNotification.getAttempts();
+    }
+}
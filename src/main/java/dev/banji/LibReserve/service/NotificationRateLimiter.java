@@ -0,0 +1,83 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.model.enums.NotificationChannel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static dev.banji.LibReserve.model.enums.NotificationChannel.EMAIL;
+import static dev.banji.LibReserve.model.enums.NotificationChannel.WEB;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * A token bucket per recipient and channel. Each bucket starts full and refills continuously, so a recipient can
+ * receive a short burst of notifications but no more than the refill rate over time.
+ */
+@Service
+public class NotificationRateLimiter {
+    private final Map<NotificationChannel, BucketSettings> bucketSettings = new EnumMap<>(NotificationChannel.class);
+    private final ConcurrentHashMap<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public NotificationRateLimiter(@Value("${library.properties.notificationRateLimit.webCapacity}") Integer webCapacity,
+                                   @Value("${library.properties.notificationRateLimit.webRefillPerMinute}") Integer webRefillPerMinute,
+                                   @Value("${library.properties.notificationRateLimit.emailCapacity}") Integer emailCapacity,
+                                   @Value("${library.properties.notificationRateLimit.emailRefillPerMinute}") Integer emailRefillPerMinute) {
+        bucketSettings.put(WEB, new BucketSettings(webCapacity, webRefillPerMinute / (double) MINUTES.toNanos(1)));
+        bucketSettings.put(EMAIL, new BucketSettings(emailCapacity, emailRefillPerMinute / (double) MINUTES.toNanos(1)));
+    }
+
+    /**
+     * @return true if the recipient still has a token on this channel, which is then consumed.
+     */
+    public boolean tryAcquire(NotificationChannel channel, String recipient) {
+        BucketSettings settings = bucketSettings.get(channel);
+        return buckets.computeIfAbsent(new BucketKey(channel, recipient), key -> new TokenBucket(settings)).tryConsume();
+    }
+
+    /**
+     * Drops buckets that have refilled completely, they behave exactly like a new bucket.
+     */
+    public void evictFullBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private record BucketKey(NotificationChannel channel, String recipient) {
+    }
+
+    private record BucketSettings(int capacity, double tokensPerNano) {
+    }
+
+    private static final class TokenBucket {
+        private final BucketSettings settings;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(BucketSettings settings) {
+            this.settings = settings;
+            this.tokens = settings.capacity();
+            this.lastRefill = System.nanoTime();
+        }
+
+        private synchronized boolean tryConsume() {
+            refill(System.nanoTime());
+            if (tokens < 1) return false;
+            tokens--;
+            return true;
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= settings.capacity();
+        }
+
+        private void refill(long now) {
+            if (now <= lastRefill) return;
+            tokens = Math.min(settings.capacity(), tokens + (now - lastRefill) * settings.tokensPerNano());
+            lastRefill = now;
+        }
+    }
+}
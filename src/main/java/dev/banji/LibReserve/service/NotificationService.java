@@ -1,9 +1,13 @@
 package dev.banji.LibReserve.service;
 
+import dev.banji.LibReserve.config.observation.PhaseTracer;
 import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
-import dev.banji.LibReserve.model.dtos.EmailNotificationDto.BulkEmailNotificationDto;
+import dev.banji.LibReserve.config.templates.NotificationTemplates;
+import dev.banji.LibReserve.config.templates.NotificationTemplates.RenderedNotification;
+import dev.banji.LibReserve.model.NotificationOutbox;
 import dev.banji.LibReserve.model.dtos.EmailNotificationDto.SingleEmailNotificationDto;
 import dev.banji.LibReserve.model.dtos.NotificationsConfig;
+import dev.banji.LibReserve.model.enums.NotificationChannel;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -12,19 +16,49 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static dev.banji.LibReserve.model.enums.NotificationChannel.EMAIL;
+import static dev.banji.LibReserve.model.enums.NotificationChannel.WEB;
 
 @Service
 @ConditionalOnProperty(prefix = "library.properties", name = "enablenotificationservice", havingValue = "true")
-public class NotificationService { //TODO validation also has to be done to ensure the place holders match a regex
+public class NotificationService {
     private SimpMessagingTemplate messagingTemplate;
     private EmailService emailService;
     private NotificationsConfig notificationsConfig;
+    private NotificationTemplates notificationTemplates;
+    private NotificationDispatcher notificationDispatcher;
+    private NotificationOutboxService notificationOutboxService;
+    private PhaseTracer phaseTracer;
+
+    @Autowired
+    private void setPhaseTracer(PhaseTracer phaseTracer) {
+        this.phaseTracer = phaseTracer;
+    }
+
+    @Autowired
+    private void setNotificationOutboxService(NotificationOutboxService notificationOutboxService) {
+        this.notificationOutboxService = notificationOutboxService;
+    }
+
+    @Autowired
+    private void setNotificationDispatcher(NotificationDispatcher notificationDispatcher) {
+        this.notificationDispatcher = notificationDispatcher;
+    }
 
     @Autowired
     public void setEmailService(EmailService emailService) {
         this.emailService = emailService;
     }
 
+    @Autowired
+    private void setNotificationTemplates(NotificationTemplates notificationTemplates) {
+        this.notificationTemplates = notificationTemplates;
+    }
+
     @Autowired
     private void setNotificationsConfig(LibraryConfigurationProperties libraryConfigurationProperties) {
         this.notificationsConfig = libraryConfigurationProperties.getSendStudentNotifications();
@@ -59,49 +93,97 @@ public class NotificationService { //TODO validation also has to be done to ensu
     @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
     //TODO validate the parameters...
     public void timeUpNotification(String emailAddress) {
-        sendNotification(emailAddress, notificationsConfig.timeUpNotificationSubject(), notificationsConfig.timeUpNotificationBody());
+        sendNotification(emailAddress, notificationTemplates.timeUp());
     }
 
     @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
     //TODO validate the parameters...
     public void timeAlmostNotification(String emailAddress, long remainingTimeInMinutes) {
-        sendNotification(emailAddress, notificationsConfig.timeUpNotificationSubject(), remainingTimeInMinutes + " " + notificationsConfig.timeUpNotificationBody());
+        sendNotification(emailAddress, notificationTemplates.timeAlmostUp(remainingTimeInMinutes));
     }
 
     @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
     //TODO validate the parameters...
     public void blackListNotification(String emailAddress) {
-        sendNotification(emailAddress, notificationsConfig.blackListNotificationSubject(), notificationsConfig.blackListNotificationBody());
+        sendNotification(emailAddress, notificationTemplates.blackList());
     }
 
     @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
     //TODO validate the parameters...
-    public void studentKickedOutNotification(String emailAddress) {
-        sendNotification(emailAddress, notificationsConfig.blackListNotificationSubject(), notificationsConfig.blackListNotificationBody());
+    public void studentKickedOutNotification(String matricNumber, String emailAddress) {
+        sendNotification(matricNumber, emailAddress, notificationTemplates.studentKickedOut(), true);
     }
 
     @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
     //TODO validate the parameters...
-    public void studentBlackListNotification(String emailAddress) {
-        sendNotification(emailAddress, notificationsConfig.studentBlackListNotificationSubject(), notificationsConfig.studentBlackListNotificationBody());
+    public void studentBlackListNotification(String matricNumber, String emailAddress) {
+        sendNotification(matricNumber, emailAddress, notificationTemplates.studentBlackList(), true);
+    }
+
+    public void seatOfferNotification(String matricNumber, long claimWindowInMinutes) { //sent by the waitlist job, not on behalf of a librarian.
+        sendNotification(matricNumber, notificationTemplates.seatOffer(claimWindowInMinutes));
+    }
+
+    public void lotteryWonNotification(String matricNumber, String reservationCode, long seatNumber) { //sent by the lottery draw.
+        sendNotification(matricNumber, notificationTemplates.lotteryWon(reservationCode, seatNumber));
+    }
+
+    public void lotteryLostNotification(String matricNumber) {
+        sendNotification(matricNumber, notificationTemplates.lotteryLost());
     }
 
     @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
     //TODO validate the parameters...
-    private void sendNotification(String emailAddress, String notificationSubject, String notificationBody) {
-        if (notificationsConfig.viaWeb()) //notify via web
-            notifyStudentViaWeb(emailAddress, notificationSubject + "\n" + notificationBody);
-        if (emailService != null) //notify via email
-            this.emailService.sendEmailNotification(new SingleEmailNotificationDto(emailAddress, notificationSubject, notificationBody));
+    private void sendNotification(String emailAddress, RenderedNotification notification) {
+        sendNotification(emailAddress, emailAddress, notification, false);
+    }
+
+    /**
+     * Written to the outbox in the caller's transaction, the NotificationOutboxPoller delivers it after the commit.
+     * The web notice goes to the student's session and the email to their address, so notices about the same student
+     * share a recipient per channel and are merged.
+     *
+     * @param accountNotice whether the notice is about the account's state and has to get past the rate limit.
+     */
+    private void sendNotification(String matricNumber, String emailAddress, RenderedNotification notification, boolean accountNotice) {
+        phaseTracer.trace("notification-enqueue", () -> {
+            if (notificationsConfig.viaWeb()) //notify via web
+                notificationOutboxService.enqueue(WEB, matricNumber, notification.subject(), notification.body(), accountNotice);
+            if (emailService != null) //notify via email
+                notificationOutboxService.enqueue(EMAIL, emailAddress, notification.subject(), notification.body(), accountNotice);
+        });
+    }
+
+    /**
+     * Hands a claimed outbox row to the dispatcher.
+     *
+     * @return a future that completes once the notification is delivered.
+     */
+    public CompletableFuture<Void> deliver(NotificationOutbox notification) {
+        return deliver(notification.getChannel(), notification.getRecipient(), notification.getSubject(), notification.getBody());
+    }
+
+    public CompletableFuture<Void> deliver(NotificationChannel channel, String recipient, String subject, String body) {
+        return switch (channel) {
+            case WEB -> notificationDispatcher.dispatch(WEB, recipient, () -> notifyStudentViaWeb(recipient, subject + "\n" + body));
+            case EMAIL -> emailService == null ? CompletableFuture.completedFuture(null) :
+                    notificationDispatcher.dispatch(EMAIL, recipient, () -> this.emailService.sendEmailNotification(new SingleEmailNotificationDto(recipient, subject, body)));
+        };
     }
 
     @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
     //TODO validate the parameters...
     public void notifyAllStudents(List<String> emailAddressList, String notificationSubject, String notificationBody) {
         if (notificationsConfig.viaWeb()) //notify via web
-            notifyAllStudentsViaWeb(notificationSubject, notificationBody);
-        if (emailService != null) //notify via email
-            this.emailService.sendEmailNotification(new BulkEmailNotificationDto(emailAddressList, notificationSubject, notificationBody));
+            notificationDispatcher.dispatch(WEB, "/notifications/students", () -> notifyAllStudentsViaWeb(notificationSubject, notificationBody));
+        if (emailService == null) return;
+        //notify via email, one dispatch per chunk. A retry only resends to the recipients of its chunk that the failed attempt did not reach.
+        int chunkSize = emailService.getChunkSize();
+        for (int chunkStart = 0; chunkStart < emailAddressList.size(); chunkStart += chunkSize) {
+            List<String> chunk = List.copyOf(emailAddressList.subList(chunkStart, Math.min(chunkStart + chunkSize, emailAddressList.size())));
+            Set<String> delivered = ConcurrentHashMap.newKeySet();
+            notificationDispatcher.dispatch(EMAIL, chunk.size() + " recipients", () -> this.emailService.sendEmailChunk(chunk, notificationSubject, notificationBody, delivered));
+        }
     }
 
     @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
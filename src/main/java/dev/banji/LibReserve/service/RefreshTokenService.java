@@ -0,0 +1,96 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.exceptions.InvalidRefreshTokenException;
+import dev.banji.LibReserve.model.RefreshToken;
+import dev.banji.LibReserve.model.enums.UserType;
+import dev.banji.LibReserve.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.springframework.transaction.annotation.Propagation.REQUIRES_NEW;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final RefreshTokenRepository refreshTokenRepository;
+    @Value("${jwt.refreshExpirationTime}")
+    private Long refreshExpirationTime;
+
+    @Transactional
+    public String issueRefreshToken(String subject, UserType userType, String scope) {
+        return issueRefreshToken(subject, userType, scope, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new one in the same family.
+     * A token that has already been rotated is treated as stolen, so the whole family is revoked.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public RefreshTokenRotation rotateRefreshToken(String rawRefreshToken) {
+        if (rawRefreshToken == null || rawRefreshToken.isBlank()) throw new InvalidRefreshTokenException();
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(rawRefreshToken)).orElseThrow(InvalidRefreshTokenException::new);
+
+        if (refreshToken.getRotatedAt() != null) { //reuse detected...
+            log.warn("Refresh token reuse detected for {}, revoking token family {}", refreshToken.getSubject(), refreshToken.getFamilyId());
+            refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token has already been used. Please log in again.");
+        }
+        if (refreshToken.isRevoked() || refreshToken.getExpiresAt().isBefore(Instant.now()))
+            throw new InvalidRefreshTokenException();
+
+        refreshToken.setRotatedAt(Instant.now());
+        refreshTokenRepository.saveAndFlush(refreshToken); //the version check fails here if a concurrent request rotated it first.
+
+        String newRefreshToken = issueRefreshToken(refreshToken.getSubject(), refreshToken.getUserType(), refreshToken.getScope(), refreshToken.getFamilyId());
+        return new RefreshTokenRotation(refreshToken.getSubject(), refreshToken.getScope(), newRefreshToken);
+    }
+
+    @Transactional(propagation = REQUIRES_NEW)
+    public void revokeAllRefreshTokens(String subject) {
+        refreshTokenRepository.revokeAllBySubject(subject);
+    }
+
+    @Transactional
+    @Scheduled(fixedRate = 1, timeUnit = HOURS)
+    public void purgeExpiredRefreshTokens() {
+        refreshTokenRepository.deleteExpiredBefore(Instant.now());
+    }
+
+    private String issueRefreshToken(String subject, UserType userType, String scope, String familyId) {
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(tokenBytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        Instant now = Instant.now();
+        refreshTokenRepository.save(new RefreshToken(hash(rawToken), subject, userType, scope, familyId, now, now.plus(refreshExpirationTime, MINUTES)));
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) { //the token carries 256 bits of entropy, so a single unsalted SHA-256 is sufficient.
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record RefreshTokenRotation(String subject, String scope, String refreshToken) {
+    }
+}
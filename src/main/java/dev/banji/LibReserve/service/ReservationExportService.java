@@ -0,0 +1,133 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.exceptions.InvalidDateRangeException;
+import dev.banji.LibReserve.model.enums.ReservationStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Streams reservations as CSV straight from a JDBC cursor into the response, one row at a time, so an export of any
+ * size runs in the same memory.
+ */
+@Slf4j
+@Service
+public class ReservationExportService {
+    private static final String HEADER = "id,reservation_code,matric_number,department,date,time,seat_number,intended_stay_in_minutes,status," +
+            "check_out_date_and_time,stay_extended,extension_in_minutes,created_on,created_at";
+    private static final String QUERY = "select r.id, r.reservation_code, s.matric_number, s.department, r.date_reservation_was_made_for, " +
+            "r.time_reservation_was_made_for, r.seat_number, r.intended_stay, r.reservation_status, r.check_out_date_and_time, r.stay_extended, " +
+            "r.total_extension_duration, r.reservation_creation_date, r.reservation_creation_time " +
+            "from student_reservation r left join student s on s.student_id = r.student_id " +
+            "where r.date_reservation_was_made_for between ? and ? order by r.date_reservation_was_made_for, r.id";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values(); //stored by ordinal.
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Long maximumRangeInDays;
+
+    public ReservationExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                    @Value("${library.properties.export.fetchSize}") Integer fetchSize,
+                                    @Value("${library.properties.export.maximumRangeInDays}") Long maximumRangeInDays) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize); //rows are pulled from the database in pages of this size instead of all at once.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true); //some drivers, e.g. PostgreSQL, only stream a result set inside a transaction.
+        this.maximumRangeInDays = maximumRangeInDays;
+    }
+
+    /**
+     * Checks the request up front and returns the body that runs the query once the response is being written.
+     */
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
+    public StreamingResponseBody reservationCsv(LocalDate from, LocalDate to, boolean gzip) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= maximumRangeInDays)
+            throw new InvalidDateRangeException(maximumRangeInDays);
+        return outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, BUFFER_SIZE) : outputStream;
+            try (var writer = new BufferedWriter(new OutputStreamWriter(target, UTF_8), BUFFER_SIZE)) {
+                writer.write(HEADER);
+                writer.newLine();
+                long start = System.nanoTime();
+                long rows = writeRows(writer, from, to);
+                log.info("Exported {} reservations for {} to {} in {} ms", rows, from, to, (System.nanoTime() - start) / 1_000_000);
+            }
+        };
+    }
+
+    private long writeRows(BufferedWriter writer, LocalDate from, LocalDate to) throws IOException {
+        long[] rows = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(QUERY, resultSet -> {
+                try {
+                    writeRow(writer, resultSet);
+                    rows[0]++;
+                } catch (IOException ioException) {
+                    throw new UncheckedIOException(ioException); //the client went away, stop reading.
+                }
+            }, Date.valueOf(from), Date.valueOf(to)));
+        } catch (UncheckedIOException uncheckedIOException) {
+            throw uncheckedIOException.getCause();
+        }
+        return rows[0];
+    }
+
+    private static void writeRow(BufferedWriter writer, ResultSet resultSet) throws SQLException, IOException {
+        writer.write(Long.toString(resultSet.getLong(1)));
+        writeField(writer, resultSet.getString(2));
+        writeField(writer, resultSet.getString(3));
+        writeField(writer, resultSet.getString(4));
+        Date date = resultSet.getDate(5);
+        writeField(writer, date == null ? null : date.toLocalDate().toString());
+        Time time = resultSet.getTime(6);
+        writeField(writer, time == null ? null : time.toLocalTime().toString());
+        writeField(writer, Long.toString(resultSet.getLong(7)));
+        writeField(writer, minutes(resultSet.getObject(8, Duration.class)));
+        int status = resultSet.getInt(9);
+        writeField(writer, resultSet.wasNull() ? null : STATUSES[status].name());
+        Timestamp checkOut = resultSet.getTimestamp(10);
+        writeField(writer, checkOut == null ? null : checkOut.toLocalDateTime().toString());
+        writeField(writer, Boolean.toString(resultSet.getBoolean(11)));
+        writeField(writer, minutes(resultSet.getObject(12, Duration.class)));
+        Date createdOn = resultSet.getDate(13);
+        writeField(writer, createdOn == null ? null : createdOn.toLocalDate().toString());
+        Time createdAt = resultSet.getTime(14);
+        writeField(writer, createdAt == null ? null : createdAt.toLocalTime().toString());
+        writer.newLine();
+    }
+
+    private static void writeField(BufferedWriter writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null) return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String minutes(Duration duration) {
+        return duration == null ? null : Long.toString(duration.toMinutes());
+    }
+}
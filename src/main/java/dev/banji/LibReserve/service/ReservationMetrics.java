@@ -0,0 +1,59 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.exceptions.LibraryRuntimeException;
+import dev.banji.LibReserve.model.LibraryOccupancyQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Domain meters for seat allocation and the management jobs. Every tag comes from a closed set, the resolver paths,
+ * the job names and the simple names of the library exceptions, so the number of series stays bounded.
+ */
+@Component
+public class ReservationMetrics {
+    public static final String WALK_IN = "walk-in";
+    public static final String TODAY = "today";
+    public static final String ADVANCE = "advance";
+    private final MeterRegistry meterRegistry;
+
+    public ReservationMetrics(MeterRegistry meterRegistry, LibraryOccupancyQueue libraryOccupancyQueue) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("libreserve.occupancy.queue.size", libraryOccupancyQueue, LibraryOccupancyQueue::size)
+                .description("Users currently signed into the library").register(meterRegistry);
+        Gauge.builder("libreserve.occupancy.queue.remaining", libraryOccupancyQueue, LibraryOccupancyQueue::remainingCapacity)
+                .description("Seats left before the library is full").register(meterRegistry);
+    }
+
+    /**
+     * Times one seat allocation on the given resolver path and counts it as a rejection if it throws.
+     */
+    public <T> T timeAllocation(String path, Supplier<T> allocation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "allocated";
+        try {
+            return allocation.get();
+        } catch (RuntimeException rejection) {
+            outcome = "rejected";
+            Counter.builder("libreserve.reservation.rejections").description("Seat allocations refused, by reason")
+                    .tag("path", path).tag("reason", reason(rejection)).register(meterRegistry).increment();
+            throw rejection;
+        } finally {
+            sample.stop(Timer.builder("libreserve.reservation.allocation").description("Time taken to allocate a seat")
+                    .tag("path", path).tag("outcome", outcome).publishPercentileHistogram().register(meterRegistry));
+        }
+    }
+
+    public void timeJob(String job, Runnable runnable) {
+        Timer.builder("libreserve.scheduler.job").description("Duration of a library management job run")
+                .tag("job", job).publishPercentileHistogram().register(meterRegistry).record(runnable);
+    }
+
+    private static String reason(RuntimeException rejection) { //anything outside the library exceptions is lumped together.
+        return rejection instanceof LibraryRuntimeException ? rejection.getClass().getSimpleName() : "other";
+    }
+}
@@ -0,0 +1,35 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
+import dev.banji.LibReserve.model.StudentReservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+
+/**
+ * The overlap rules shared by single and batch bookings. Time spans are half open, so a booking may start at the
+ * minute another one ends.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationOverlapChecker {
+    private final LibraryConfigurationProperties libraryConfigurationProperties;
+
+    public LocalTime estimatedEndTime(StudentReservation studentReservation) {
+        LocalTime estimatedEndTime = studentReservation.getCheckInTime().plusMinutes(studentReservation.getIntendedStay().toMinutes());
+
+        //check if time extension is allowed and if the existing student reservation has asked for a time extension...
+        if (libraryConfigurationProperties.getAllowTimeExtension() && studentReservation.isStayExtended())
+            estimatedEndTime = estimatedEndTime.plusMinutes(studentReservation.getTotalExtensionDuration().toMinutes());
+        return estimatedEndTime;
+    }
+
+    public boolean overlaps(LocalTime proposedStartTime, LocalTime proposedEndTime, StudentReservation studentReservation) {
+        return overlaps(proposedStartTime, proposedEndTime, studentReservation.getCheckInTime(), estimatedEndTime(studentReservation));
+    }
+
+    public boolean overlaps(LocalTime proposedStartTime, LocalTime proposedEndTime, LocalTime startTime, LocalTime endTime) {
+        return proposedStartTime.isBefore(endTime) && proposedEndTime.isAfter(startTime);
+    }
+}
@@ -0,0 +1,79 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
+import dev.banji.LibReserve.model.dtos.SeatMapDeltaDto;
+import dev.banji.LibReserve.model.dtos.SeatMapResyncDto;
+import dev.banji.LibReserve.model.dtos.SeatMapSnapshotDto;
+import dev.banji.LibReserve.model.dtos.SeatMapSnapshotDto.OccupiedSeatDto;
+import dev.banji.LibReserve.model.events.SeatOccupancyChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static dev.banji.LibReserve.model.enums.SeatChange.FREED;
+
+/**
+ * Keeps a versioned copy of the seat map and streams every change to {@value #SEAT_MAP_TOPIC}.
+ * Clients load a snapshot once, apply deltas in version order, and only resynchronize when they detect a gap.
+ */
+@Service
+public class SeatMapService {
+    public static final String SEAT_MAP_TOPIC = "/notifications/seat-map";
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long numberOfSeats;
+    private final int retainedDeltas;
+    private final TreeMap<Long, LocalTime> occupiedSeats = new TreeMap<>(); //seat number -> estimated end of stay
+    private final ArrayDeque<SeatMapDeltaDto> recentDeltas = new ArrayDeque<>();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("seat-map-sender-")); //one thread, so deltas reach the broker in version order.
+    private long version;
+
+    public SeatMapService(SimpMessagingTemplate messagingTemplate, LibraryConfigurationProperties libraryConfigurationProperties,
+                          @Value("${library.properties.seatMap.retainedDeltas}") Integer retainedDeltas) {
+        this.messagingTemplate = messagingTemplate;
+        this.numberOfSeats = libraryConfigurationProperties.getNumberOfSeats();
+        this.retainedDeltas = retainedDeltas;
+    }
+
+    /**
+     * Published under the occupancy queue lock, so only the version is assigned here. The broker send is handed to
+     * the sender thread, so check-ins never wait on the broker.
+     */
+    @EventListener
+    public synchronized void onSeatOccupancyChanged(SeatOccupancyChangedEvent event) {
+        if (event.change() == FREED) occupiedSeats.remove(event.seatNumber());
+        else occupiedSeats.put(event.seatNumber(), event.occupiedUntil());
+
+        var delta = new SeatMapDeltaDto(++version, event.change(), event.seatNumber(), event.occupiedUntil());
+        recentDeltas.addLast(delta);
+        if (recentDeltas.size() > retainedDeltas) recentDeltas.removeFirst();
+        sender.execute(() -> messagingTemplate.convertAndSend(SEAT_MAP_TOPIC, delta));
+    }
+
+    public synchronized SeatMapSnapshotDto snapshot() {
+        List<OccupiedSeatDto> occupiedSeatList = occupiedSeats.entrySet().stream().map(seat -> new OccupiedSeatDto(seat.getKey(), seat.getValue())).toList();
+        return new SeatMapSnapshotDto(version, numberOfSeats, occupiedSeatList);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdown();
+    }
+
+    /**
+     * @param lastSeenVersion the last version the client applied.
+     * @return the deltas after that version, or a snapshot when some of them are no longer retained.
+     */
+    public synchronized SeatMapResyncDto resynchronize(long lastSeenVersion) {
+        if (lastSeenVersion > version || recentDeltas.isEmpty() && lastSeenVersion != version || !recentDeltas.isEmpty() && recentDeltas.getFirst().version() > lastSeenVersion + 1)
+            return new SeatMapResyncDto(List.of(), snapshot());
+        return new SeatMapResyncDto(recentDeltas.stream().filter(delta -> delta.version() > lastSeenVersion).toList(), null);
+    }
+}
@@ -1,29 +1,36 @@
 package dev.banji.LibReserve.service;
 
+import dev.banji.LibReserve.config.observation.PhaseTracer;
 import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
 import dev.banji.LibReserve.exceptions.*;
 import dev.banji.LibReserve.model.LibraryOccupancyQueue;
 import dev.banji.LibReserve.model.Reservation;
 import dev.banji.LibReserve.model.Student;
 import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.dtos.BatchReservationDto.ProposedSlotDto;
+import dev.banji.LibReserve.model.dtos.BatchReservationDto.ReservedSlotDto;
 import dev.banji.LibReserve.model.dtos.CurrentStudentDetailDto;
 import dev.banji.LibReserve.model.dtos.StudentReservationDto;
+import dev.banji.LibReserve.model.dtos.WaitlistStatusDto;
 import dev.banji.LibReserve.model.enums.ReservationStatus;
 import dev.banji.LibReserve.repository.StudentRepository;
 import dev.banji.LibReserve.repository.StudentReservationRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.LongStream;
 
 import static dev.banji.LibReserve.model.enums.ReservationStatus.*;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toSet;
 
 @Service
 @RequiredArgsConstructor
@@ -34,15 +41,29 @@ public class StudentService {
     private final ReservationCodeService reservationCodeService;
     private final LibraryOccupancyQueue libraryOccupancyQueue;
     private final JwtTokenService jwtTokenService;
+    private final ReservationOverlapChecker reservationOverlapChecker;
+    private final WaitlistService waitlistService;
+    private final BookingAdmissionService bookingAdmissionService;
+    private final ReservationMetrics reservationMetrics;
+    private final PhaseTracer phaseTracer;
+    private final AdvanceBookingLock advanceBookingLock;
+    private final TransactionTemplate transactionTemplate;
 
     private StudentReservation reservationHandler(String matricNumber, Boolean isWalkInAccess, LocalDateTime proposedDateAndTime, Duration duration, Boolean isTodayBooking) {
+        String path = isWalkInAccess ? ReservationMetrics.WALK_IN : isTodayBooking ? ReservationMetrics.TODAY : ReservationMetrics.ADVANCE;
+        Supplier<StudentReservation> allocation = () -> allocateReservation(matricNumber, isWalkInAccess, proposedDateAndTime, duration, isTodayBooking);
+        Supplier<StudentReservation> guardedAllocation = isWalkInAccess || isTodayBooking ? allocation : () -> advanceBookingLock.locked(allocation); //advance seats are also handed out by the lottery draw.
+        return reservationMetrics.timeAllocation(path, () -> phaseTracer.trace("reservation." + path, guardedAllocation));
+    }
+
+    private StudentReservation allocateReservation(String matricNumber, Boolean isWalkInAccess, LocalDateTime proposedDateAndTime, Duration duration, Boolean isTodayBooking) {
 
         //check if there's the library is operational...
         if (!libraryConfigurationProperties.getAcceptingBookings())
             throw LibraryClosedException.LibraryNotOperationalException();
 
         //check if library has an available seat for the proposed time...
-        Optional<Long> availableSeatOptional = internalReservationResolver(matricNumber, duration, isWalkInAccess, proposedDateAndTime, isTodayBooking);
+        Optional<Long> availableSeatOptional = phaseTracer.trace("seat-resolution", () -> internalReservationResolver(matricNumber, duration, isWalkInAccess, proposedDateAndTime, isTodayBooking));
         if (availableSeatOptional.isEmpty()) {
             throw new NoSpotAvailableException();
             //TODO why not simple send a notification asking if he/she want's to be placed in a waiting queue pending when a spot opens up or maybe book for another time...
@@ -53,36 +74,130 @@ public class StudentService {
             throw new BookingTimeExceedsLimitException(libraryConfigurationProperties.getBookingTimeAllowedInMinutes());
 
         //generate reservationCode
-        String generatedReservationCode = reservationCodeService.generateNewReservationCode();
+        String generatedReservationCode = phaseTracer.trace("code-generation", reservationCodeService::generateNewReservationCode);
 
         //the call to the student repository is to simply have access to the student object...
-        Student student = studentRepository.findByMatricNumber(matricNumber).orElseThrow(() -> {
+        Student student = phaseTracer.trace("student-fetch", () -> studentRepository.findByMatricNumber(matricNumber)).orElseThrow(() -> {
             throw UserNotFoundException.StudentNotFoundException();
         });
 
         //create reservation...
         StudentReservation studentReservation = StudentReservation.builder().checkInTime(proposedDateAndTime.toLocalTime()).seatNumber(availableSeatOptional.get()).intendedStay(duration).reservationCreationDate(LocalDate.now()).reservationCreationTime(LocalTime.now()).dateReservationWasMadeFor(proposedDateAndTime.toLocalDate()).timeReservationWasMadeFor(proposedDateAndTime.toLocalTime()).reservationStatus(BOOKED).student(student).reservationCode(generatedReservationCode).build();
 
-        //persist to db...
-        student.getStudentReservationList().add(studentReservation);
-        studentRepository.save(student);
+        //persist to db, through the reservation since the student's list only cascades persist and would merge in an empty copy...
+        phaseTracer.trace("save", () -> studentReservationRepository.save(studentReservation));
         // return the studentReservation
         return studentReservation;
     }
 
     public String reserveForTodayRequest(String matricNumber, LocalDateTime proposedDateAndTime, Duration duration) {
-        return reservationHandler(matricNumber, false, proposedDateAndTime, duration, true).getReservationCode();
+        return bookingAdmissionService.admit(() -> reservationHandler(matricNumber, false, proposedDateAndTime, duration, true)).getReservationCode();
     }
 
     public String handleWalkInRequest(String matricNumber, Duration duration) {
-        StudentReservation studentReservation = reservationHandler(matricNumber, true, LocalDateTime.now(), duration, true);
+        StudentReservation studentReservation;
+        try {
+            studentReservation = bookingAdmissionService.admit(() -> reservationHandler(matricNumber, true, LocalDateTime.now(), duration, true));
+        } catch (LibraryClosedException libraryClosedException) { //the student is offered the next freed seat instead of retrying.
+            if (libraryClosedException.isMaximumLimitReached()) waitlistService.join(matricNumber);
+            throw libraryClosedException;
+        } catch (NoSpotAvailableException noSpotAvailableException) {
+            waitlistService.join(matricNumber);
+            throw noSpotAvailableException;
+        }
         boolean signedIn = libraryOccupancyQueue.updateStudentSession(new CurrentStudentDetailDto(matricNumber, studentReservation));
         if (!signedIn) throw new LibraryRuntimeException();
+        waitlistService.walkInSeated(matricNumber);
         return studentReservation.getReservationCode();
     }
 
+    public WaitlistStatusDto joinWaitlist(String matricNumber) {
+        return waitlistService.join(matricNumber);
+    }
+
+    public WaitlistStatusDto fetchWaitlistStatus(String matricNumber) {
+        return waitlistService.status(matricNumber);
+    }
+
+    public boolean leaveWaitlist(String matricNumber) {
+        return waitlistService.leave(matricNumber);
+    }
+
     public String handleAdvancedRequest(String matricNumber, LocalDateTime proposedDateAndTime, Duration duration) {
-        return reservationHandler(matricNumber, false, proposedDateAndTime, duration, false).getReservationCode();
+        return bookingAdmissionService.admit(() -> reservationHandler(matricNumber, false, proposedDateAndTime, duration, false)).getReservationCode();
+    }
+
+    /**
+     * Books several advance slots at once. The quota and overlap rules are checked for all slots together, against the
+     * existing bookings and against each other, and the reservations are saved in one transaction: either every slot is
+     * booked or none is, and the failure names the first slot that could not be booked.
+     */
+    public List<ReservedSlotDto> handleBatchAdvancedRequest(String matricNumber, List<ProposedSlotDto> proposedSlotList) {
+        return advanceBookingLock.locked(() -> transactionTemplate.execute(status -> batchAdvancedReservation(matricNumber, proposedSlotList)));
+    }
+
+    private List<ReservedSlotDto> batchAdvancedReservation(String matricNumber, List<ProposedSlotDto> proposedSlotList) {
+        if (!libraryConfigurationProperties.getAcceptingBookings())
+            throw LibraryClosedException.LibraryNotOperationalException();
+        if (!libraryConfigurationProperties.getAllowAdvancedBookings())
+            throw new AdvancedBookingNotPermittedException();
+        if (proposedSlotList == null || proposedSlotList.isEmpty()) throw new InvalidReservationException("At least one slot has to be proposed.");
+
+        Student student = studentRepository.findByMatricNumber(matricNumber).orElseThrow(() -> {
+            throw UserNotFoundException.StudentNotFoundException();
+        });
+
+        Set<LocalDate> dateSet = proposedSlotList.stream().map(slot -> slot.proposedDateAndTime().toLocalDate()).collect(toSet());
+        Map<LocalDate, List<StudentReservation>> bookedReservationsByDate = studentReservationRepository.findByDateReservationWasMadeForInAndReservationStatus(dateSet, BOOKED)
+                .stream().collect(groupingBy(Reservation::getDateReservationWasMadeFor));
+        Map<LocalDate, Integer> bookingCountByDate = new HashMap<>();
+        dateSet.forEach(date -> bookingCountByDate.put(date, studentReservationRepository.countByStudentMatricNumberAndDateReservationWasMadeFor(matricNumber, date)));
+
+        List<StudentReservation> newReservationList = new ArrayList<>();
+        for (int slotIndex = 0; slotIndex < proposedSlotList.size(); slotIndex++) {
+            ProposedSlotDto slot = proposedSlotList.get(slotIndex);
+            LocalDate date = slot.proposedDateAndTime().toLocalDate();
+            LocalTime proposedStartTime = slot.proposedDateAndTime().toLocalTime();
+            LocalTime proposedEndTime = proposedStartTime.plusMinutes(slot.duration().toMinutes());
+
+            if (!date.isAfter(LocalDate.now()))
+                throw new BatchReservationException(slotIndex, slot.proposedDateAndTime(), slot.duration(), new AdvancedBookingRequiredException().getMessage());
+            if (slot.duration().toMinutes() > libraryConfigurationProperties.getBookingTimeAllowedInMinutes())
+                throw new BatchReservationException(slotIndex, slot.proposedDateAndTime(), slot.duration(), new BookingTimeExceedsLimitException(libraryConfigurationProperties.getBookingTimeAllowedInMinutes()).getMessage());
+
+            //quota, counting the slots of this batch that were already accepted...
+            int numberOfBookings = bookingCountByDate.merge(date, 1, Integer::sum) - 1;
+            try {
+                if (!libraryConfigurationProperties.getAllowMultipleReservations() && numberOfBookings >= 1)
+                    throw new MultipleBookingException();
+                maximumLimitCheck(numberOfBookings);
+            } catch (LibraryRuntimeException quotaException) {
+                throw new BatchReservationException(slotIndex, slot.proposedDateAndTime(), slot.duration(), quotaException.getMessage());
+            }
+
+            //a student cannot be in two sessions at once...
+            List<StudentReservation> reservationsOfDay = bookedReservationsByDate.computeIfAbsent(date, ignored -> new ArrayList<>());
+            boolean overlapsOwnBooking = reservationsOfDay.stream()
+                    .filter(reservation -> reservation.getStudent() != null && matricNumber.equals(reservation.getStudent().getMatricNumber()))
+                    .anyMatch(reservation -> reservationOverlapChecker.overlaps(proposedStartTime, proposedEndTime, reservation));
+            if (overlapsOwnBooking)
+                throw new BatchReservationException(slotIndex, slot.proposedDateAndTime(), slot.duration(), new ReservationOverlapException().getMessage());
+
+            //the first seat whose bookings, including the ones from this batch, do not overlap...
+            OptionalLong seatNumber = LongStream.rangeClosed(1, libraryConfigurationProperties.getNumberOfSeats())
+                    .filter(seat -> reservationsOfDay.stream().noneMatch(reservation -> reservation.getSeatNumber() == seat && reservationOverlapChecker.overlaps(proposedStartTime, proposedEndTime, reservation)))
+                    .findFirst();
+            if (seatNumber.isEmpty())
+                throw new BatchReservationException(slotIndex, slot.proposedDateAndTime(), slot.duration(), new NoSpotAvailableException().getMessage());
+
+            StudentReservation studentReservation = StudentReservation.builder().checkInTime(proposedStartTime).seatNumber(seatNumber.getAsLong()).intendedStay(slot.duration()).reservationCreationDate(LocalDate.now()).reservationCreationTime(LocalTime.now()).dateReservationWasMadeFor(date).timeReservationWasMadeFor(proposedStartTime).reservationStatus(BOOKED).student(student).reservationCode(reservationCodeService.generateNewReservationCode()).build();
+            reservationsOfDay.add(studentReservation);
+            newReservationList.add(studentReservation);
+        }
+
+        //persist to db...
+        studentReservationRepository.saveAll(newReservationList);
+        return newReservationList.stream().map(reservation -> new ReservedSlotDto(LocalDateTime.of(reservation.getDateReservationWasMadeFor(), reservation.getCheckInTime()), reservation.getIntendedStay(), reservation.getSeatNumber(), reservation.getReservationCode())).toList();
     }
 
     public Boolean requestForExtension(String matricNumber, Duration extensionDuration) {
@@ -93,19 +208,20 @@ public class StudentService {
 
         if (!libraryConfigurationProperties.getAllowTimeExtension()) // if time extensionDuration is not allowed
             throw new TimeExtensionNotPermittedException();
-        if (!libraryConfigurationProperties.getAllowMultipleTimeExtension()) //if time multiple time extension is not allowed
+        if (!libraryConfigurationProperties.getAllowMultipleTimeExtension() && reservation.isStayExtended()) //if time multiple time extension is not allowed
             throw new MultipleTimeExtensionException();
         if (extensionDuration.toMinutes() > libraryConfigurationProperties.getMaximumTimeExtensionAllowedInMinutes()) //check the time duration
             throw new DurationExceedsLimitException();
 
         //update reservation...
         reservation.setStayExtended(true);
-        Duration currentExtensionDuration = reservation.getTotalExtensionDuration();
+        Duration currentExtensionDuration = reservation.getTotalExtensionDuration() == null ? Duration.ZERO : reservation.getTotalExtensionDuration();
         Duration totalDuration = currentExtensionDuration.plus(extensionDuration);
 
         reservation.setReservationStatus(TIME_EXTENDED);
         reservation.setTotalExtensionDuration(totalDuration);
         studentReservationRepository.save(reservation);
+        libraryOccupancyQueue.extendStudentSession(matricNumber);
         // TODO send notification...
         return true;
     }
@@ -113,6 +229,7 @@ public class StudentService {
     public boolean studentLogout(Jwt jwt, String matricNumber) { //this means that the user should always be prompted before he/she is logged out.because logging out will invalidate his/her jwt token...
         //add JWT to blacklist
         boolean blackListed = jwtTokenService.blacklistAccessToken(jwt);
+        jwtTokenService.revokeRefreshTokens(matricNumber);
 
         if (libraryOccupancyQueue.isUserPresentInLibrary(matricNumber).isPresent())
             return checkoutStudent(matricNumber) && blackListed;
@@ -199,11 +316,10 @@ public class StudentService {
             libraryOccupancyQueue.isUserPresentInLibrary(matricNumber);
 
             //Check if student already has reservations for that day and if there is a maximum limit
-            int numberOfBookings = multipleReservationsCheck(matricNumber, LocalDate.now());
-            maximumLimitCheck(numberOfBookings);
+            quotaCheck(matricNumber, LocalDate.now());
 
-            //return an available seat number...
-            return libraryOccupancyQueue.seatNumberResolver(libraryOccupancyQueue.getInternalAvailableSeatNumberList(), false);
+            //return an available seat number, unless every free seat is held for the waiting list...
+            return libraryOccupancyQueue.walkInSeatResolver(freeSeats -> waitlistService.checkWalkInAdmission(matricNumber, freeSeats));
 
         } else if (todayBooking) {
             LocalTime proposedStartTime = proposedDateAndTime.toLocalTime();
@@ -214,11 +330,10 @@ public class StudentService {
                 throw new ReservationNotForTodayException();
 
             // Check if student already has multiple bookings for today and if student has reached the maximum limit already
-            int numberOfBookings = multipleReservationsCheck(matricNumber, LocalDate.now());
-            maximumLimitCheck(numberOfBookings);
+            quotaCheck(matricNumber, LocalDate.now());
 
             //check the time the student is requesting for access...check if there are is an overlap...
-            List<StudentReservation> bookedReservationForTodayList = studentReservationRepository.findByDateReservationWasMadeForAndReservationStatus(LocalDate.now(), BOOKED);
+            List<StudentReservation> bookedReservationForTodayList = phaseTracer.trace("booking-fetch", () -> studentReservationRepository.findByDateReservationWasMadeForAndReservationStatus(LocalDate.now(), BOOKED));
 
             var currentOccupancyList = libraryOccupancyQueue.fetchOccupancyQueueAsList().stream().map(user -> (StudentReservation) user.getReservation()).toList();
 
@@ -232,13 +347,13 @@ public class StudentService {
 
             //since the number of bookings for that day is higher than total number of available seats,
             //then check if it's possible to find a spot without overlapping an existing reservation...
-            var availableSeatNumberList = bookedReservationForTodayList.stream().filter(reservation -> checkForOverlap(proposedStartTime, reservation, proposedEndTime)).toList();
+            var availableSeatNumberList = phaseTracer.trace("overlap-scan", () -> bookedReservationForTodayList.stream().filter(reservation -> checkForOverlap(proposedStartTime, reservation, proposedEndTime)).toList());
             if (!availableSeatNumberList.isEmpty())
                 return libraryOccupancyQueue.seatNumberResolver(availableSeatNumberList.stream().mapToLong(Reservation::getSeatNumber).boxed().toList(), false);
 
             //finally if it's none of the conditions above match, then check the current occupancy list for a spot that won't overlap...
             //since there might be a spot available since the search earlier was done using the reservation status as "BOOKED"
-            availableSeatNumberList = currentOccupancyList.stream().filter(reservation -> checkForOverlap(proposedStartTime, reservation, proposedEndTime)).toList();
+            availableSeatNumberList = phaseTracer.trace("overlap-scan", () -> currentOccupancyList.stream().filter(reservation -> checkForOverlap(proposedStartTime, reservation, proposedEndTime)).toList());
 
             if (!availableSeatNumberList.isEmpty())
                 return libraryOccupancyQueue.seatNumberResolver(availableSeatNumberList.stream().mapToLong(Reservation::getSeatNumber).boxed().toList(), false);
@@ -257,14 +372,13 @@ public class StudentService {
             }
 
             //retrieve booking's for that day...
-            List<StudentReservation> studentReservationList = studentReservationRepository.findByDateReservationWasMadeForAndReservationStatus(proposedDateAndTime.toLocalDate(), BOOKED).stream().toList();
+            List<StudentReservation> studentReservationList = phaseTracer.trace("booking-fetch", () -> studentReservationRepository.findByDateReservationWasMadeForAndReservationStatus(proposedDateAndTime.toLocalDate(), BOOKED));
 
             // Check if student already has multiple bookings for that day and if student has reached the maximum limit already.
-            int numberOfBookings = multipleReservationsCheck(matricNumber, proposedDateAndTime.toLocalDate());
-            maximumLimitCheck(numberOfBookings);
+            quotaCheck(matricNumber, proposedDateAndTime.toLocalDate());
 
             //check a reservation that does not overlap the existing reservation can be made ...
-            List<StudentReservation> reservationList = studentReservationList.stream().filter(reservation -> checkForOverlap(proposedStartTime, reservation, proposedEndTime)).toList();
+            List<StudentReservation> reservationList = phaseTracer.trace("overlap-scan", () -> studentReservationList.stream().filter(reservation -> checkForOverlap(proposedStartTime, reservation, proposedEndTime)).toList());
 
             if (!reservationList.isEmpty()) {
                 List<Long> availableSeatList = LongStream.rangeClosed(1, libraryConfigurationProperties.getNumberOfSeats()).filter(seat -> reservationList.stream().noneMatch(reservation -> reservation.getSeatNumber() == seat)).boxed().toList();
@@ -274,6 +388,10 @@ public class StudentService {
         return Optional.empty();
     }
 
+    private void quotaCheck(String matricNumber, LocalDate localDate) {
+        phaseTracer.trace("quota-count", () -> maximumLimitCheck(multipleReservationsCheck(matricNumber, localDate)));
+    }
+
     private int multipleReservationsCheck(String matricNumber, LocalDate localDate) {
         int reservationCount = studentReservationRepository.countByStudentMatricNumberAndDateReservationWasMadeFor(matricNumber, localDate);
         if (!libraryConfigurationProperties.getAllowMultipleReservations() && reservationCount >= 1)
@@ -286,14 +404,8 @@ public class StudentService {
             throw new ReservationLimitExceededException(libraryConfigurationProperties.getMaximumLimitPerDay());
     }
 
-    private boolean checkForOverlap(LocalTime proposedStartTime, StudentReservation studentReservation, LocalTime proposedEndTime) {
-        LocalTime alreadyBookedStudentEstimatedEndTime = studentReservation.getCheckInTime().plusMinutes(studentReservation.getIntendedStay().toMinutes());
-
-        //check if time extension is allowed and if the existing student reservation has asked for a time extension...
-        if (libraryConfigurationProperties.getAllowTimeExtension() && studentReservation.isStayExtended())
-            alreadyBookedStudentEstimatedEndTime = alreadyBookedStudentEstimatedEndTime.plusMinutes(studentReservation.getTotalExtensionDuration().toMinutes());
-
-        return (!proposedStartTime.isBefore(alreadyBookedStudentEstimatedEndTime) || !proposedEndTime.isAfter(studentReservation.getCheckInTime())) && (!proposedStartTime.isBefore(studentReservation.getCheckInTime()) || !proposedEndTime.isAfter(alreadyBookedStudentEstimatedEndTime)) && (!proposedStartTime.isAfter(studentReservation.getCheckInTime()) || !proposedEndTime.isBefore(alreadyBookedStudentEstimatedEndTime));
+    private boolean checkForOverlap(LocalTime proposedStartTime, StudentReservation studentReservation, LocalTime proposedEndTime) { //true when the proposed time does *not* overlap the reservation.
+        return !reservationOverlapChecker.overlaps(proposedStartTime, proposedEndTime, studentReservation);
     }
 
 }
\ No newline at end of file
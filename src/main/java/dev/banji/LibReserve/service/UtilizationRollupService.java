@@ -0,0 +1,250 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
+import dev.banji.LibReserve.exceptions.InvalidDateRangeException;
+import dev.banji.LibReserve.model.AllowedFaculties;
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.UtilizationRollup;
+import dev.banji.LibReserve.model.dtos.DailyUtilizationDto;
+import dev.banji.LibReserve.model.dtos.FacultyUtilizationDto;
+import dev.banji.LibReserve.model.dtos.HourlyUtilizationDto;
+import dev.banji.LibReserve.model.dtos.UtilizationRebuildDto;
+import dev.banji.LibReserve.model.enums.ReservationStatus;
+import dev.banji.LibReserve.model.events.ReservationStatusChangedEvent;
+import dev.banji.LibReserve.repository.StudentReservationRepository;
+import dev.banji.LibReserve.repository.UtilizationRollupRepository;
+import dev.banji.LibReserve.repository.UtilizationRollupRepository.DepartmentTotals;
+import dev.banji.LibReserve.repository.UtilizationRollupRepository.HourlyTotals;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static dev.banji.LibReserve.model.enums.ReservationStatus.*;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRES_NEW;
+
+/**
+ * Keeps the hourly {@link UtilizationRollup} rows up to date as reservations are checked in, checked out, expired
+ * and cancelled, and answers the utilization reports from them alone.
+ * Every status is attributed to the booked start hour, except a checkout, which is attributed to the hour it happened.
+ * The occupied seat minutes run from the actual check-in to the checkout.
+ */
+@Slf4j
+@Service
+public class UtilizationRollupService {
+    private static final Set<ReservationStatus> CHECKED_OUT_STATUSES = EnumSet.of(STUDENT_CHECKED_OUT, LIBRARIAN_CHECKED_OUT, SYSTEM_CHECKED_OUT, BLACKLISTED);
+    private static final String UNKNOWN = "UNKNOWN";
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final String INSERT = "insert into utilization_rollup (rollup_date, hour_of_day, department, check_ins, check_outs, expiries, " +
+            "cancellations, occupied_seat_minutes) values (?, ?, ?, ?, ?, ?, ?, ?)";
+    private final UtilizationRollupRepository utilizationRollupRepository;
+    private final StudentReservationRepository studentReservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final long numberOfSeats;
+    private final Map<String, String> facultyByDepartment = new HashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("utilization-rollup-writer-")); //the request thread may still hold its connection, the rollup transaction takes its own here.
+    private final Long maximumRangeInDays;
+
+    public UtilizationRollupService(UtilizationRollupRepository utilizationRollupRepository, StudentReservationRepository studentReservationRepository,
+                                    PlatformTransactionManager transactionManager, DataSource dataSource, LibraryConfigurationProperties libraryConfigurationProperties,
+                                    @Value("${library.properties.utilization.maximumRangeInDays}") Long maximumRangeInDays) {
+        this.utilizationRollupRepository = utilizationRollupRepository;
+        this.studentReservationRepository = studentReservationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(PROPAGATION_REQUIRES_NEW);
+        this.jdbcTemplate = new JdbcTemplate(dataSource); //inserts plainly, where the repository would merge into a row a concurrent writer just inserted.
+        this.numberOfSeats = libraryConfigurationProperties.getNumberOfSeats();
+        this.maximumRangeInDays = maximumRangeInDays;
+        if (libraryConfigurationProperties.getSetOfAllowedFaculties() != null)
+            for (AllowedFaculties faculty : libraryConfigurationProperties.getSetOfAllowedFaculties())
+                if (faculty.departments() != null)
+                    for (AllowedFaculties.AllowedDepartments department : faculty.departments())
+                        facultyByDepartment.put(department.name(), faculty.name());
+    }
+
+    /**
+     * Applied after the change commits, so a rolled back change is never counted. The deltas are written by the writer
+     * thread, one event at a time. A failure there only leaves the rollup behind; replaying the day repairs it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationStatusChanged(ReservationStatusChangedEvent event) {
+        Map<UtilizationRollup.Key, UtilizationRollup> deltas = new HashMap<>();
+        if ((event.previousStatus() == null || event.previousStatus() == BOOKED) && impliesCheckIn(event.status()))
+            contribute(event, CHECKED_IN, deltas); //it never went through CHECKED_IN, count the check-in a replay counts for it.
+        contribute(event, event.status(), deltas);
+        if (deltas.isEmpty()) return;
+        writer.execute(() -> {
+            try {
+                upsert(deltas.values());
+            } catch (RuntimeException exception) {
+                log.warn("Could not update the utilization rollup for reservation {}, replay {} to repair it", event.reservationId(), event.date(), exception);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    /**
+     * Recomputes the rollups of every day in the range from the reservations, one day per transaction. Replaying a
+     * day any number of times gives the same rows. A change committing on a day while it is being replayed may be
+     * counted twice, so replay a live day again once it has settled.
+     */
+    public UtilizationRebuildDto replay(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        long reservationsReplayed = 0, rollupRows = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            LocalDate day = date;
+            long[] counts = transactionTemplate.execute(status -> replayDay(day));
+            reservationsReplayed += counts[0];
+            rollupRows += counts[1];
+        }
+        log.info("Replayed {} reservations into {} utilization rollup rows for {} to {}", reservationsReplayed, rollupRows, from, to);
+        return new UtilizationRebuildDto(from, to, reservationsReplayed, rollupRows);
+    }
+
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
+    public UtilizationRebuildDto rebuild(LocalDate from, LocalDate to) {
+        return replay(from, to);
+    }
+
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
+    public List<HourlyUtilizationDto> hourlyUtilization(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return utilizationRollupRepository.sumPerHour(from, to).stream().map(totals -> new HourlyUtilizationDto(totals.getDate(), totals.getHourOfDay(),
+                totals.getCheckIns(), totals.getCheckOuts(), totals.getExpiries(), totals.getCancellations(), totals.getOccupiedSeatMinutes(),
+                utilization(totals.getOccupiedSeatMinutes(), 1))).toList();
+    }
+
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
+    public List<DailyUtilizationDto> dailyUtilization(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        Map<LocalDate, List<HourlyTotals>> hoursByDate = utilizationRollupRepository.sumPerHour(from, to).stream()
+                .collect(groupingBy(HourlyTotals::getDate, TreeMap::new, toList()));
+        return hoursByDate.entrySet().stream().map(entry -> dailyUtilization(entry.getKey(), entry.getValue())).toList();
+    }
+
+    @PreAuthorize("hasAuthority('SCOPE_LIBRARIAN')")
+    public List<FacultyUtilizationDto> facultyUtilization(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        List<DepartmentTotals> departmentTotals = utilizationRollupRepository.sumPerDepartment(from, to);
+        long totalOccupiedSeatMinutes = departmentTotals.stream().mapToLong(DepartmentTotals::getOccupiedSeatMinutes).sum();
+        Map<String, List<DepartmentTotals>> departmentsByFaculty = departmentTotals.stream()
+                .collect(groupingBy(totals -> facultyByDepartment.getOrDefault(totals.getDepartment(), UNKNOWN), TreeMap::new, toList()));
+        return departmentsByFaculty.entrySet().stream().map(entry -> {
+            List<DepartmentTotals> departments = entry.getValue();
+            long occupiedSeatMinutes = departments.stream().mapToLong(DepartmentTotals::getOccupiedSeatMinutes).sum();
+            return new FacultyUtilizationDto(entry.getKey(), departments.stream().map(DepartmentTotals::getDepartment).sorted().toList(),
+                    departments.stream().mapToLong(DepartmentTotals::getCheckIns).sum(), departments.stream().mapToLong(DepartmentTotals::getCheckOuts).sum(),
+                    departments.stream().mapToLong(DepartmentTotals::getExpiries).sum(), departments.stream().mapToLong(DepartmentTotals::getCancellations).sum(),
+                    occupiedSeatMinutes, totalOccupiedSeatMinutes == 0 ? 0 : (double) occupiedSeatMinutes / totalOccupiedSeatMinutes);
+        }).toList();
+    }
+
+    private long[] replayDay(LocalDate date) {
+        utilizationRollupRepository.deleteByRollupDate(date);
+        List<StudentReservation> reservations = studentReservationRepository.findWithStudentByDateReservationWasMadeFor(date);
+        Map<UtilizationRollup.Key, UtilizationRollup> rollups = new HashMap<>();
+        reservations.forEach(reservation -> {
+            var event = ReservationStatusChangedEvent.of(reservation, null);
+            if (impliesCheckIn(event.status()))
+                contribute(event, CHECKED_IN, rollups); //the check-in the reservation went through on its way here.
+            contribute(event, event.status(), rollups);
+        });
+        rollups.values().forEach(this::addTo);
+        return new long[]{reservations.size(), rollups.size()};
+    }
+
+    /**
+     * Adds the deltas in one transaction. When a concurrent replay inserts the row for a key first, the transaction is
+     * rolled back and retried once, and the second attempt adds to that row.
+     */
+    private void upsert(Collection<UtilizationRollup> deltas) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::addTo));
+        } catch (DataIntegrityViolationException duplicateKey) {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::addTo));
+        }
+    }
+
+    private void addTo(UtilizationRollup delta) {
+        UtilizationRollup.Key key = delta.getId();
+        int updated = utilizationRollupRepository.addTo(key.getRollupDate(), key.getHourOfDay(), key.getDepartment(),
+                delta.getCheckIns(), delta.getCheckOuts(), delta.getExpiries(), delta.getCancellations(), delta.getOccupiedSeatMinutes());
+        if (updated == 0)
+            jdbcTemplate.update(INSERT, key.getRollupDate(), key.getHourOfDay(), key.getDepartment(), delta.getCheckIns(), delta.getCheckOuts(),
+                    delta.getExpiries(), delta.getCancellations(), delta.getOccupiedSeatMinutes());
+    }
+
+    private static boolean impliesCheckIn(ReservationStatus status) {
+        return status == TIME_EXTENDED || CHECKED_OUT_STATUSES.contains(status);
+    }
+
+    private void contribute(ReservationStatusChangedEvent event, ReservationStatus status, Map<UtilizationRollup.Key, UtilizationRollup> rollups) {
+        String department = event.department() == null ? UNKNOWN : event.department();
+        int startHour = event.start().getHour();
+        if (status == CHECKED_IN)
+            rollup(rollups, event.date(), startHour, department).add(1, 0, 0, 0, 0);
+        else if (status == EXPIRED)
+            rollup(rollups, event.date(), startHour, department).add(0, 0, 1, 0, 0);
+        else if (status == CANCELLED)
+            rollup(rollups, event.date(), startHour, department).add(0, 0, 0, 1, 0);
+        else if (CHECKED_OUT_STATUSES.contains(status)) {
+            int startMinute = minuteOfDay(event.checkedIn());
+            int endMinute = event.end().equals(LocalTime.MAX) ? MINUTES_PER_DAY : minuteOfDay(event.end());
+            rollup(rollups, event.date(), Math.min(23, endMinute / 60), department).add(0, 1, 0, 0, 0);
+            for (int hour = startMinute / 60; hour * 60 < endMinute; hour++) { //spread the stay over the hours it covered.
+                long minutes = Math.min(endMinute, (hour + 1) * 60) - Math.max(startMinute, hour * 60);
+                if (minutes > 0) rollup(rollups, event.date(), hour, department).add(0, 0, 0, 0, minutes);
+            }
+        }
+    }
+
+    private DailyUtilizationDto dailyUtilization(LocalDate date, List<HourlyTotals> hours) {
+        HourlyTotals peakHour = hours.stream().filter(hour -> hour.getOccupiedSeatMinutes() > 0)
+                .max(Comparator.comparingLong(HourlyTotals::getOccupiedSeatMinutes)).orElse(null);
+        long occupiedHours = hours.stream().filter(hour -> hour.getOccupiedSeatMinutes() > 0).count();
+        long occupiedSeatMinutes = hours.stream().mapToLong(HourlyTotals::getOccupiedSeatMinutes).sum();
+        return new DailyUtilizationDto(date, hours.stream().mapToLong(HourlyTotals::getCheckIns).sum(), hours.stream().mapToLong(HourlyTotals::getCheckOuts).sum(),
+                hours.stream().mapToLong(HourlyTotals::getExpiries).sum(), hours.stream().mapToLong(HourlyTotals::getCancellations).sum(),
+                occupiedSeatMinutes, utilization(occupiedSeatMinutes, occupiedHours), peakHour == null ? null : peakHour.getHourOfDay(),
+                peakHour == null ? 0 : utilization(peakHour.getOccupiedSeatMinutes(), 1));
+    }
+
+    private double utilization(long occupiedSeatMinutes, long hours) {
+        return hours == 0 || numberOfSeats == 0 ? 0 : (double) occupiedSeatMinutes / (numberOfSeats * 60 * hours);
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= maximumRangeInDays)
+            throw new InvalidDateRangeException(maximumRangeInDays);
+    }
+
+    private static UtilizationRollup rollup(Map<UtilizationRollup.Key, UtilizationRollup> rollups, LocalDate date, int hourOfDay, String department) {
+        return rollups.computeIfAbsent(new UtilizationRollup.Key(date, hourOfDay, department), UtilizationRollup::new);
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
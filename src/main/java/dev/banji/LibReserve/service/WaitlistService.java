@@ -0,0 +1,107 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.exceptions.LibraryClosedException;
+import dev.banji.LibReserve.model.LibraryOccupancyQueue;
+import dev.banji.LibReserve.model.LibraryWaitingQueue;
+import dev.banji.LibReserve.model.LibraryWaitingQueue.WaitingStudent;
+import dev.banji.LibReserve.model.dtos.WaitlistStatusDto;
+import dev.banji.LibReserve.model.events.SeatOccupancyChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static dev.banji.LibReserve.model.enums.SeatChange.FREED;
+import static java.time.temporal.ChronoUnit.MINUTES;
+
+/**
+ * Hands freed walk-in seats to the waiting list one student at a time. When a seat frees up, the student at the head
+ * of the list is offered it and the seat is held for the claim window: other walk-ins see the library as full until
+ * the offer is claimed or expires, after which the next student is offered the seat.
+ */
+@Slf4j
+@Service
+public class WaitlistService {
+    private final LibraryWaitingQueue libraryWaitingQueue;
+    private final LibraryOccupancyQueue libraryOccupancyQueue;
+    private final ObjectProvider<NotificationService> notificationServiceProvider;
+    private final Map<String, Instant> offers = new ConcurrentHashMap<>(); //matric number -> end of the claim window
+    private final AtomicBoolean seatFreed = new AtomicBoolean();
+    private final long claimWindowInMinutes;
+
+    public WaitlistService(LibraryWaitingQueue libraryWaitingQueue, LibraryOccupancyQueue libraryOccupancyQueue, ObjectProvider<NotificationService> notificationServiceProvider,
+                           @Value("${library.properties.waitlist.claimWindowInMinutes}") Long claimWindowInMinutes) {
+        this.libraryWaitingQueue = libraryWaitingQueue;
+        this.libraryOccupancyQueue = libraryOccupancyQueue;
+        this.notificationServiceProvider = notificationServiceProvider;
+        this.claimWindowInMinutes = claimWindowInMinutes;
+    }
+
+    public WaitlistStatusDto join(String matricNumber) {
+        if (offers.containsKey(matricNumber)) return status(matricNumber);
+        libraryWaitingQueue.join(matricNumber);
+        seatFreed.set(true); //a seat may already be free, e.g. when nobody was waiting as it freed up.
+        return status(matricNumber);
+    }
+
+    public WaitlistStatusDto status(String matricNumber) {
+        Instant offerExpires = offers.get(matricNumber);
+        int position = offerExpires != null ? 0 : libraryWaitingQueue.positionOf(matricNumber).orElse(-1);
+        return new WaitlistStatusDto(position, libraryWaitingQueue.size(), offerExpires);
+    }
+
+    public boolean leave(String matricNumber) {
+        boolean declinedOffer = offers.remove(matricNumber) != null;
+        if (declinedOffer) seatFreed.set(true);
+        return libraryWaitingQueue.leave(matricNumber) || declinedOffer;
+    }
+
+    /**
+     * Called under the occupancy queue lock, right before a walk-in is allocated one of the free seats.
+     *
+     * @throws LibraryClosedException if every free seat is being held for a student from the waiting list.
+     */
+    public void checkWalkInAdmission(String matricNumber, int freeSeats) {
+        if (offers.containsKey(matricNumber)) return; //the held seat is theirs.
+        if (freeSeats <= offers.size())
+            throw LibraryClosedException.LibraryMaximumLimitReached();
+    }
+
+    /**
+     * Called once a walk-in is seated, releasing the seat held for them.
+     */
+    public void walkInSeated(String matricNumber) {
+        offers.remove(matricNumber);
+        libraryWaitingQueue.leave(matricNumber);
+    }
+
+    @EventListener
+    public void onSeatOccupancyChanged(SeatOccupancyChangedEvent event) { //published under the occupancy queue lock, so the offer itself is made by the scheduled job.
+        if (event.change() == FREED) seatFreed.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${library.properties.waitlist.offerIntervalInMillis}")
+    public void offerFreedSeats() {
+        Instant now = Instant.now();
+        boolean offerExpired = offers.entrySet().removeIf(offer -> offer.getValue().isBefore(now));
+        if (!seatFreed.getAndSet(false) && !offerExpired) return;
+
+        int unheldSeats = libraryOccupancyQueue.freeSeatCount() - offers.size();
+        for (; unheldSeats > 0; unheldSeats--) {
+            Optional<WaitingStudent> head = libraryWaitingQueue.pollFirst();
+            if (head.isEmpty()) return;
+            String matricNumber = head.get().matricNumber();
+            offers.put(matricNumber, now.plus(claimWindowInMinutes, MINUTES));
+            log.info("Offered a freed seat to {} for {} minutes", matricNumber, claimWindowInMinutes);
+            notificationServiceProvider.ifAvailable(notificationService -> notificationService.seatOfferNotification(matricNumber, claimWindowInMinutes));
+        }
+    }
+}
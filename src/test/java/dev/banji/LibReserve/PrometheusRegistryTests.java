@@ -0,0 +1,29 @@
+package dev.banji.LibReserve;
+
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots with the Prometheus registry that the other tests swap out, so meter names that collide in the Prometheus
+ * exposition format fail here instead of at startup in production.
+ */
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(properties = {"UNIVERSITY_URL=http://localhost", "MAIL_USERNAME=test", "MAIL_PASSWORD=test",
+        "JWT_SECRET_KEY=prometheus-test-signing-key-that-is-long-enough-for-hs512-prometheus-test-0123456789"})
+class PrometheusRegistryTests {
+    @Autowired
+    private PrometheusMeterRegistry prometheusMeterRegistry;
+
+    @Test
+    void scrapesEveryRegisteredMeter() {
+        assertThat(prometheusMeterRegistry.scrape())
+                .contains("libreserve_websocket_session_queue_depth_max")
+                .contains("libreserve_websocket_session_queue_depth_deepest")
+                .contains("libreserve_occupancy_lock_hold_seconds");
+    }
+}
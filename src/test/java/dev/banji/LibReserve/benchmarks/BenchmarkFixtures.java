@@ -0,0 +1,43 @@
+package dev.banji.LibReserve.benchmarks;
+
+import dev.banji.LibReserve.config.properties.LibraryConfigurationProperties;
+import dev.banji.LibReserve.model.Student;
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.dtos.LibrarianSeatDto;
+import dev.banji.LibReserve.model.dtos.ManagementService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import static dev.banji.LibReserve.model.enums.ReservationStatus.BOOKED;
+
+/**
+ * Builds the configuration and entities the benchmarks run against, without a Spring context.
+ */
+final class BenchmarkFixtures {
+    private BenchmarkFixtures() {
+    }
+
+    static LibraryConfigurationProperties libraryConfigurationProperties(long numberOfSeats, boolean enableSeatRandomization) {
+        return new LibraryConfigurationProperties("https://university.test", true, 180L, 5L, numberOfSeats, true, 60L,
+                true, 15L, true, 10L, false, false, null, new ManagementService(false, new ArrayList<>()), 5L, 5L,
+                Set.of(), enableSeatRandomization, true, true, 3, true, true, false,
+                new LibrarianSeatDto(false, 0L, new HashSet<>(Set.of())));
+    }
+
+    static Student student(String matricNumber) {
+        return new Student("Ada", null, "Obi", "F", "08000000000", matricNumber.toLowerCase() + "@university.test",
+                "Ikeja", "Lagos", "Nigeria", null, new ArrayList<>(), matricNumber, "Computer Science", "400", "password");
+    }
+
+    static StudentReservation reservation(Student student, long seatNumber, LocalTime checkInTime, Duration intendedStay) {
+        return StudentReservation.builder().checkInTime(checkInTime).seatNumber(seatNumber).intendedStay(intendedStay)
+                .reservationCreationDate(LocalDate.now()).reservationCreationTime(LocalTime.now())
+                .dateReservationWasMadeFor(LocalDate.now()).timeReservationWasMadeFor(checkInTime)
+                .reservationStatus(BOOKED).student(student).reservationCode("AB12C").totalExtensionDuration(Duration.ZERO).build();
+    }
+}
@@ -0,0 +1,76 @@
+package dev.banji.LibReserve.benchmarks;
+
+import dev.banji.LibReserve.model.LibraryOccupancyQueue;
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.dtos.CurrentStudentDetailDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign in/out, lookups and seat resolution on an occupancy queue that is half full.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LibraryOccupancyQueueBenchmark {
+    @Param({"100", "1000"})
+    private int numberOfSeats;
+    @Param({"false", "true"})
+    private boolean enableSeatRandomization;
+    private LibraryOccupancyQueue libraryOccupancyQueue;
+    private CurrentStudentDetailDto visitor;
+    private String lastSignedInCode;
+
+    @Setup
+    public void setUp() {
+        libraryOccupancyQueue = new LibraryOccupancyQueue(BenchmarkFixtures.libraryConfigurationProperties(numberOfSeats, enableSeatRandomization), event -> {
+        }, new SimpleMeterRegistry());
+        for (int i = 1; i <= numberOfSeats / 2; i++) {
+            var student = BenchmarkFixtures.student("MAT" + i);
+            StudentReservation reservation = BenchmarkFixtures.reservation(student, i, LocalTime.of(9, 0), Duration.ofHours(2));
+            reservation.setReservationCode("CODE" + i);
+            libraryOccupancyQueue.updateStudentSession(new CurrentStudentDetailDto(student.getMatricNumber(), reservation));
+            lastSignedInCode = reservation.getReservationCode();
+        }
+        var student = BenchmarkFixtures.student("VISITOR");
+        visitor = new CurrentStudentDetailDto(student.getMatricNumber(), BenchmarkFixtures.reservation(student, numberOfSeats, LocalTime.of(9, 0), Duration.ofHours(1)));
+    }
+
+    @Benchmark
+    public boolean signInAndOut() {
+        libraryOccupancyQueue.updateStudentSession(visitor);
+        return libraryOccupancyQueue.signOutStudent(visitor);
+    }
+
+    @Benchmark
+    public Optional<StudentReservation> lookUpByReservationCode() { //the worst case, the code of the last student in the queue.
+        return libraryOccupancyQueue.isStudentPresentInLibrary(lastSignedInCode);
+    }
+
+    @Benchmark
+    public boolean isSeatTaken() {
+        return libraryOccupancyQueue.isSeatTaken((long) numberOfSeats - 1);
+    }
+
+    @Benchmark
+    public Optional<Long> resolveAndReleaseSeat() {
+        Optional<Long> seatNumber = libraryOccupancyQueue.seatNumberResolver(libraryOccupancyQueue.getInternalAvailableSeatNumberList(), false);
+        seatNumber.ifPresent(seat -> libraryOccupancyQueue.getInternalAvailableSeatNumberList().add(seat)); //put it back for the next invocation.
+        return seatNumber;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LibraryOccupancyQueueBenchmark.class.getSimpleName()).build()).run();
+    }
+}
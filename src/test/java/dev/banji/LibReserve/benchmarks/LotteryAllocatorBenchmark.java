@@ -0,0 +1,52 @@
+package dev.banji.LibReserve.benchmarks;
+
+import dev.banji.LibReserve.service.LotteryAllocator;
+import dev.banji.LibReserve.service.LotteryAllocator.Allocation;
+import dev.banji.LibReserve.service.LotteryAllocator.LotteryEntry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * One lottery draw over 10,000 entries competing for a day with 10% of the seats already booked.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LotteryAllocatorBenchmark {
+    private static final int NUMBER_OF_SEATS = 500;
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 7);
+    private List<LotteryEntry> entries;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        entries = IntStream.range(0, 10_000).mapToObj(i -> {
+            LocalTime start = LocalTime.of(8 + random.nextInt(10), random.nextInt(4) * 15);
+            return new LotteryEntry("MAT" + (i % 4_000), DATE, start, start.plusMinutes(30 + random.nextInt(150)));
+        }).toList();
+    }
+
+    @Benchmark
+    public List<Allocation> allocate() {
+        var allocator = new LotteryAllocator(NUMBER_OF_SEATS, 2);
+        for (int seat = 1; seat <= NUMBER_OF_SEATS / 10; seat++)
+            allocator.occupy("BOOKED" + seat, DATE, seat, LocalTime.of(9, 0), LocalTime.of(17, 0));
+        return allocator.allocate(entries, new Random(7));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LotteryAllocatorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
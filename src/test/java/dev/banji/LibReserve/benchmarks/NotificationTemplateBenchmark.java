@@ -0,0 +1,52 @@
+package dev.banji.LibReserve.benchmarks;
+
+import dev.banji.LibReserve.config.templates.NotificationTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static dev.banji.LibReserve.config.templates.NotificationTemplates.REMAINING_TIME_IN_MINUTES;
+
+/**
+ * Compares rendering a compiled template with the string concatenation it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationTemplateBenchmark {
+    private static final String BODY = "Your booking will end in {remainingTimeInMinutes:number} minutes.";
+    private NotificationTemplate compiledTemplate;
+    private long remainingTimeInMinutes;
+
+    @Setup
+    public void setUp() {
+        compiledTemplate = NotificationTemplate.compile("timeAlmostUpNotificationBody", BODY, List.of(REMAINING_TIME_IN_MINUTES));
+        remainingTimeInMinutes = 15;
+    }
+
+    @Benchmark
+    public String renderCompiledTemplate() {
+        return compiledTemplate.render(remainingTimeInMinutes);
+    }
+
+    @Benchmark
+    public String concatenateAtSendTime() {
+        return remainingTimeInMinutes + " " + "Your booking will end soon.";
+    }
+
+    @Benchmark
+    public NotificationTemplate compileTemplate() {
+        return NotificationTemplate.compile("timeAlmostUpNotificationBody", BODY, List.of(REMAINING_TIME_IN_MINUTES));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NotificationTemplateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
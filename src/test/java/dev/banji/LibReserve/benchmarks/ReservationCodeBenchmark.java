@@ -0,0 +1,35 @@
+package dev.banji.LibReserve.benchmarks;
+
+import dev.banji.LibReserve.service.ReservationCodeService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationCodeBenchmark {
+    private final ReservationCodeService reservationCodeService = new ReservationCodeService(null, null);
+
+    @Benchmark
+    @Threads(1)
+    public String generateNewReservationCode() {
+        return reservationCodeService.generateNewReservationCode();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateNewReservationCodeContended() {
+        return reservationCodeService.generateNewReservationCode();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReservationCodeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
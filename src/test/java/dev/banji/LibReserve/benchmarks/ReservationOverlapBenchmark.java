@@ -0,0 +1,50 @@
+package dev.banji.LibReserve.benchmarks;
+
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.service.ReservationOverlapChecker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The conflict scan StudentService runs over a day's bookings for every today and advance request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationOverlapBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int numberOfReservations;
+    private ReservationOverlapChecker reservationOverlapChecker;
+    private List<StudentReservation> reservations;
+    private final LocalTime proposedStartTime = LocalTime.of(13, 0);
+    private final LocalTime proposedEndTime = LocalTime.of(15, 0);
+
+    @Setup
+    public void setUp() {
+        reservationOverlapChecker = new ReservationOverlapChecker(BenchmarkFixtures.libraryConfigurationProperties(numberOfReservations, false));
+        var random = new Random(42);
+        reservations = IntStream.range(0, numberOfReservations).mapToObj(i -> BenchmarkFixtures.reservation(BenchmarkFixtures.student("MAT" + i),
+                i + 1, LocalTime.of(8 + random.nextInt(10), random.nextInt(4) * 15), Duration.ofMinutes(30 + random.nextInt(150)))).toList();
+    }
+
+    @Benchmark
+    public long countNonOverlappingReservations() {
+        return reservations.stream().filter(reservation -> !reservationOverlapChecker.overlaps(proposedStartTime, proposedEndTime, reservation)).count();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReservationOverlapBenchmark.class.getSimpleName()).build()).run();
+    }
+}
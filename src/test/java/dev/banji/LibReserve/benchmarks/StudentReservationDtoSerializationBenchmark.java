@@ -0,0 +1,53 @@
+package dev.banji.LibReserve.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.banji.LibReserve.model.dtos.StudentReservationDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Serializing a single reservation and the list returned by the reservation/all endpoint.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentReservationDtoSerializationBenchmark {
+    private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+    private StudentReservationDto reservation;
+    private List<StudentReservationDto> reservations;
+
+    @Setup
+    public void setUp() {
+        var student = BenchmarkFixtures.student("MAT1");
+        reservations = IntStream.range(0, 50).mapToObj(i -> new StudentReservationDto(BenchmarkFixtures.reservation(student, i + 1, LocalTime.of(9, 0), Duration.ofHours(2)))).toList();
+        reservation = reservations.get(0);
+    }
+
+    @Benchmark
+    public byte[] serializeReservation() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(reservation);
+    }
+
+    @Benchmark
+    public byte[] serializeReservationList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(reservations);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StudentReservationDtoSerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package dev.banji.LibReserve.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(properties = {"PROMETHEUS_SCRAPE_USERNAME=scraper", "PROMETHEUS_SCRAPE_PASSWORD=scrape-secret", "management.health.mail.enabled=false"})
+@AutoConfigureMockMvc
+class ActuatorSecurityTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private List<Jwt> blackListedJwtTokenList;
+
+    @Test
+    void rejectsUnauthenticatedRequests() throws Exception {
+        mockMvc.perform(get("/actuator/hibernate")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void rejectsStudents() throws Exception {
+        mockMvc.perform(get("/actuator/hibernate").with(jwt().authorities(new SimpleGrantedAuthority("SCOPE_STUDENT"))))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void servesLibrarians() throws Exception {
+        mockMvc.perform(get("/actuator/hibernate").with(jwt().authorities(new SimpleGrantedAuthority("SCOPE_LIBRARIAN"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rejectsABlacklistedLibrarianToken() throws Exception {
+        Jwt loggedOutToken = Jwt.withTokenValue("logged-out-librarian").header("alg", "HS512").subject("STAFF000001").claim("scope", "LIBRARIAN").build();
+        blackListedJwtTokenList.add(loggedOutToken);
+
+        mockMvc.perform(get("/actuator/hibernate").with(jwt().jwt(loggedOutToken).authorities(new SimpleGrantedAuthority("SCOPE_LIBRARIAN"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void leavesHealthOpenForProbes() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void servesPrometheusToTheScraperCredentialOnly() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("scraper", "scrape-secret"))).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("scraper", "wrong"))).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(jwt().authorities(new SimpleGrantedAuthority("SCOPE_LIBRARIAN")))).andExpect(status().isForbidden());
+    }
+}
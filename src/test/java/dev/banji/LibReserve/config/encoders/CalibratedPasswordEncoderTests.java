@@ -0,0 +1,33 @@
+package dev.banji.LibReserve.config.encoders;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CalibratedPasswordEncoderTests {
+    private final CalibratedPasswordEncoder passwordEncoder = new CalibratedPasswordEncoder(6, new SimpleMeterRegistry());
+
+    @Test
+    void upgradesHashesBelowTheCalibratedStrength() {
+        assertThat(passwordEncoder.upgradeEncoding(bcrypt(5))).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(bcrypt(4))).isTrue();
+    }
+
+    @Test
+    void keepsHashesWithinTheToleranceAboveTheCalibratedStrength() {
+        assertThat(passwordEncoder.upgradeEncoding(bcrypt(6))).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding(bcrypt(6 + CalibratedPasswordEncoder.DOWNGRADE_TOLERANCE))).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding(bcrypt(7 + CalibratedPasswordEncoder.DOWNGRADE_TOLERANCE))).isTrue();
+    }
+
+    @Test
+    void migratesHashesOfOtherEncoders() {
+        assertThat(passwordEncoder.upgradeEncoding("{noop}password")).isTrue();
+    }
+
+    private static String bcrypt(int strength) {
+        return "{bcrypt}" + new BCryptPasswordEncoder(strength).encode("password");
+    }
+}
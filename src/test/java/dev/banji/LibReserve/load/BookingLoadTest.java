@@ -0,0 +1,165 @@
+package dev.banji.LibReserve.load;
+
+import dev.banji.LibReserve.model.Account;
+import dev.banji.LibReserve.model.Librarian;
+import dev.banji.LibReserve.model.Student;
+import dev.banji.LibReserve.repository.LibrarianRepository;
+import dev.banji.LibReserve.repository.StudentRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.temporal.ChronoUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+/**
+ * Replays an exam-season rush against the application on a random port and an in-memory H2 database.
+ * Every virtual student loops over a walk-in session (walk in, check in by code, extend, log out) or an advance
+ * booking until the run ends. Run it with {@code mvn -Pload-test test}, sized with -DloadTest.students,
+ * -DloadTest.librarians, -DloadTest.concurrency and -DloadTest.durationInSeconds.
+ * The library has a seat per student and allows several bookings a day, so every walk-in can be seated. The run fails
+ * when bookings never succeed, when more than -DloadTest.maximumErrorRate of the requests get a 5xx or no response,
+ * or when the p99 latency of an endpoint exceeds -DloadTest.p99BudgetInMillis.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "JWT_SECRET_KEY=load-test-signing-key-that-is-long-enough-for-hs512-load-test-signing-key-0123456789",
+        "UNIVERSITY_URL=http://localhost", "MAIL_USERNAME=load-test", "MAIL_PASSWORD=load-test",
+        "ENABLE_REQUEST_THROTTLING=false",
+        "NUMBER_OF_SEATS=${loadTest.students:200}",
+        "library.properties.allowMultipleReservations=true", "library.properties.enableLimitPerDay=false",
+        "library.properties.bookingAdmission.maximumQueueDepth=100000",
+        "logging.level.org.springframework.security=WARN"})
+class BookingLoadTest {
+    private static final String STUDENT_API = "/api/lib-reserve/student";
+    private static final String LIBRARIAN_API = "/api/lib-reserve/librarian";
+    private final int numberOfStudents = Integer.getInteger("loadTest.students", 200);
+    private final int numberOfLibrarians = Integer.getInteger("loadTest.librarians", 5);
+    private final int concurrency = Integer.getInteger("loadTest.concurrency", 32);
+    private final Duration runDuration = Duration.ofSeconds(Integer.getInteger("loadTest.durationInSeconds", 30));
+    private final double maximumErrorRate = Double.parseDouble(System.getProperty("loadTest.maximumErrorRate", "0.01"));
+    private final double p99BudgetInMillis = Double.parseDouble(System.getProperty("loadTest.p99BudgetInMillis", "10000"));
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final LoadReport loadReport = new LoadReport();
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtEncoder jwtEncoder;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private LibrarianRepository librarianRepository;
+
+    @Test
+    void examSeasonRush() throws InterruptedException {
+        List<String> matricNumbers = seedStudents();
+        List<String> librarianTokens = seedLibrarians().stream().map(staffNumber -> mintToken(staffNumber, "LIBRARIAN")).toList();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        Instant start = Instant.now();
+        Instant deadline = start.plus(runDuration);
+        for (int worker = 0; worker < concurrency; worker++) {
+            int offset = worker; //workers start on different students and step by the concurrency, spreading them over the students.
+            workers.execute(() -> runWorker(matricNumbers, offset, librarianTokens, deadline));
+        }
+        workers.shutdown();
+        workers.awaitTermination(runDuration.plusMinutes(1).toSeconds(), TimeUnit.SECONDS);
+
+        System.out.println(loadReport.format(Duration.between(start, Instant.now())));
+        assertThat(loadReport.successes("walk-in")).as("seated walk-ins").isPositive();
+        assertThat(loadReport.successes("advance booking")).as("advance bookings").isPositive();
+        assertThat(loadReport.errorRate()).as("share of requests with a 5xx or no response").isLessThanOrEqualTo(maximumErrorRate);
+        assertThat(loadReport.percentileInMillisPerEndpoint(0.99)).as("p99 latency in ms per endpoint").allSatisfy((endpoint, p99) ->
+                assertThat(p99).as("p99 of %s", endpoint).isLessThanOrEqualTo(p99BudgetInMillis));
+    }
+
+    private void runWorker(List<String> matricNumbers, int offset, List<String> librarianTokens, Instant deadline) {
+        var random = ThreadLocalRandom.current();
+        for (int iteration = offset; Instant.now().isBefore(deadline); iteration += concurrency) {
+            String matricNumber = matricNumbers.get(iteration % matricNumbers.size());
+            String librarianToken = librarianTokens.get(random.nextInt(librarianTokens.size()));
+            if (random.nextInt(10) < 6) walkInSession(matricNumber, librarianToken);
+            else advanceBooking(matricNumber, random.nextInt(1, 8), LocalTime.of(random.nextInt(8, 18), random.nextInt(4) * 15));
+        }
+    }
+
+    private void walkInSession(String matricNumber, String librarianToken) {
+        String studentToken = mintToken(matricNumber, "STUDENT"); //logging out blacklists the token, so every session gets a new one.
+        HttpResponse<String> walkIn = send("walk-in", studentToken, post(STUDENT_API + "/reservation/today/now", "\"PT1H\""));
+        if (walkIn == null || walkIn.statusCode() != 200) return;
+        send("check-in by code", librarianToken, get(LIBRARIAN_API + "/validate/reservationCode?reservationCode=" + walkIn.body()));
+        send("extension", studentToken, post(STUDENT_API + "/reservation/extension", "\"PT10M\""));
+        send("logout", studentToken, post(STUDENT_API + "/logout", ""));
+    }
+
+    private void advanceBooking(String matricNumber, int daysAhead, LocalTime startTime) {
+        String body = "{\"slots\":[{\"proposedDateAndTime\":\"" + LocalDate.now().plusDays(daysAhead).atTime(startTime) + "\",\"duration\":\"PT2H\"}]}";
+        send("advance booking", mintToken(matricNumber, "STUDENT"), post(STUDENT_API + "/reservation/advance/batch", body));
+    }
+
+    private HttpResponse<String> send(String endpoint, String token, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request.header("Authorization", "Bearer " + token).timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+            loadReport.record(endpoint, System.nanoTime() - start, String.valueOf(response.statusCode()));
+            return response;
+        } catch (Exception requestFailure) {
+            loadReport.record(endpoint, System.nanoTime() - start, requestFailure.getClass().getSimpleName());
+            if (requestFailure instanceof InterruptedException) Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private String mintToken(String subject, String scope) { //the same claims JwtTokenService puts into an access token.
+        JwtClaimsSet claims = JwtClaimsSet.builder().issuedAt(Instant.now()).issuer("LibReserve").expiresAt(Instant.now().plus(30, MINUTES))
+                .subject(subject).claim("scope", scope).build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS512).build(), claims)).getTokenValue();
+    }
+
+    private List<String> seedStudents() {
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < numberOfStudents; i++)
+            students.add(new Student("Load", null, "Student" + i, "F", "+23470" + String.format("%08d", i), "load.student" + i + "@test.com",
+                    "testLga", "testState", "testCountry", new Account(true, true), new ArrayList<>(), "LOAD" + String.format("%06d", i), "Computer Science", "400", "unused"));
+        return studentRepository.saveAll(students).stream().map(Student::getMatricNumber).toList();
+    }
+
+    private List<String> seedLibrarians() {
+        List<Librarian> librarians = new ArrayList<>();
+        for (int i = 0; i < numberOfLibrarians; i++)
+            librarians.add(new Librarian("Load", null, "Librarian" + i, "M", "+23480" + String.format("%08d", i), "load.librarian" + i + "@test.com",
+                    "testLga", "testState", "testCountry", new Account(true, true), "STAFF" + String.format("%06d", i), "unused"));
+        return librarianRepository.saveAll(librarians).stream().map(Librarian::getStaffNumber).toList();
+    }
+}
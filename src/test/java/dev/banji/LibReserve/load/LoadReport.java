@@ -0,0 +1,92 @@
+package dev.banji.LibReserve.load;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latencies and outcomes per endpoint, collected from every worker thread of a load run.
+ */
+final class LoadReport {
+    private final Map<String, EndpointStatistics> endpointStatistics = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyInNanos, String outcome) {
+        endpointStatistics.computeIfAbsent(endpoint, ignored -> new EndpointStatistics()).record(latencyInNanos, outcome);
+    }
+
+    long totalRequests() {
+        return endpointStatistics.values().stream().mapToLong(EndpointStatistics::count).sum();
+    }
+
+    /**
+     * Share of all requests that got a server error or no response at all.
+     */
+    double errorRate() {
+        long total = totalRequests();
+        return total == 0 ? 0 : (double) endpointStatistics.values().stream().mapToLong(EndpointStatistics::errors).sum() / total;
+    }
+
+    long successes(String endpoint) {
+        EndpointStatistics statistics = endpointStatistics.get(endpoint);
+        return statistics == null ? 0 : statistics.successes();
+    }
+
+    Map<String, Double> percentileInMillisPerEndpoint(double percentile) {
+        Map<String, Double> percentiles = new TreeMap<>();
+        endpointStatistics.forEach((endpoint, statistics) -> percentiles.put(endpoint, statistics.percentileInMillis(percentile)));
+        return percentiles;
+    }
+
+    String format(Duration elapsed) {
+        var report = new StringBuilder(String.format("%n%-22s %9s %10s %9s %9s %9s %9s  %s%n", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "outcomes"));
+        new TreeMap<>(endpointStatistics).forEach((endpoint, statistics) -> report.append(statistics.format(endpoint, elapsed)));
+        return report.append(String.format("%d requests in %d s%n", totalRequests(), elapsed.toSeconds())).toString();
+    }
+
+    private static final class EndpointStatistics {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<String, Integer> outcomes = new TreeMap<>();
+
+        private synchronized void record(long latencyInNanos, String outcome) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = latencyInNanos;
+            outcomes.merge(outcome, 1, Integer::sum);
+        }
+
+        private synchronized long count() {
+            return count;
+        }
+
+        private synchronized long successes() {
+            return outcomes.entrySet().stream().filter(outcome -> outcome.getKey().startsWith("2")).mapToLong(Map.Entry::getValue).sum();
+        }
+
+        private synchronized long errors() { //a 5xx, or an exception name when there was no response.
+            return outcomes.entrySet().stream().filter(outcome -> !Character.isDigit(outcome.getKey().charAt(0)) || outcome.getKey().startsWith("5"))
+                    .mapToLong(Map.Entry::getValue).sum();
+        }
+
+        private synchronized double percentileInMillis(double percentile) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return percentileInMillis(sorted, percentile);
+        }
+
+        private synchronized String format(String endpoint, Duration elapsed) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return String.format("%-22s %9d %10.1f %9.2f %9.2f %9.2f %9.2f  %s%n", endpoint, count, count / Math.max(elapsed.toMillis() / 1000.0, 0.001),
+                    percentileInMillis(sorted, 0.50), percentileInMillis(sorted, 0.99), percentileInMillis(sorted, 0.999),
+                    percentileInMillis(sorted, 1.0), outcomes);
+        }
+
+        private static double percentileInMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.model.dtos.EmailMessageDto.BulkEmailMessageDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailServiceTests {
+    private CountingSmtpServer smtpServer;
+    private EmailService emailService;
+    private final List<String> recipients = IntStream.range(0, 120).mapToObj(i -> "student" + i + "@test.com").toList();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new CountingSmtpServer();
+        var javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost("localhost");
+        javaMailSender.setPort(smtpServer.getPort());
+        var javaMailProperties = new Properties();
+        javaMailProperties.put("mail.smtp.from", "library@test.com");
+        javaMailSender.setJavaMailProperties(javaMailProperties);
+        emailService = new EmailService(javaMailSender);
+        ReflectionTestUtils.setField(emailService, "chunkSize", 50);
+        ReflectionTestUtils.setField(emailService, "collapseIntoBcc", false);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtpServer.close();
+    }
+
+    @Test
+    void bulkMessagesReuseOneConnectionPerChunk() {
+        emailService.sendEmailMessage(new BulkEmailMessageDto(recipients, "Library closing", "The library closes at 6pm."));
+
+        assertThat(smtpServer.connections.get()).isEqualTo(3);
+        assertThat(smtpServer.messages.get()).isEqualTo(120);
+        assertThat(smtpServer.recipients.get()).isEqualTo(120);
+    }
+
+    @Test
+    void bulkMessagesCollapseIntoOneBccMessagePerChunk() {
+        ReflectionTestUtils.setField(emailService, "collapseIntoBcc", true);
+
+        emailService.sendEmailMessage(new BulkEmailMessageDto(recipients, "Library closing", "The library closes at 6pm."));
+
+        assertThat(smtpServer.connections.get()).isEqualTo(3);
+        assertThat(smtpServer.messages.get()).isEqualTo(3);
+        assertThat(smtpServer.recipients.get()).isEqualTo(120);
+    }
+
+    @Test
+    void retriedChunkOnlyResendsToRecipientsThatWereNotReached() {
+        smtpServer.rejectOnce.add("student7@test.com");
+        List<String> chunk = recipients.subList(0, 50);
+        Set<String> delivered = new HashSet<>();
+
+        assertThatThrownBy(() -> emailService.sendEmailChunk(chunk, "Library closing", "The library closes at 6pm.", delivered)).isInstanceOf(MailSendException.class);
+        assertThat(delivered).hasSize(49).doesNotContain("student7@test.com");
+        assertThat(smtpServer.messages.get()).isEqualTo(49);
+
+        emailService.sendEmailChunk(chunk, "Library closing", "The library closes at 6pm.", delivered);
+        assertThat(delivered).hasSize(50);
+        assertThat(smtpServer.messages.get()).isEqualTo(50);
+    }
+
+    @Test
+    void rejectsANonPositiveChunkSize() {
+        ReflectionTestUtils.setField(emailService, "chunkSize", 0);
+
+        assertThatThrownBy(emailService::validateChunkSize).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Just enough SMTP to accept messages, counting connections, messages and recipients.
+     */
+    private static final class CountingSmtpServer implements Closeable {
+        private final ServerSocket serverSocket;
+        private final ExecutorService executorService = Executors.newCachedThreadPool();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger messages = new AtomicInteger();
+        private final AtomicInteger recipients = new AtomicInteger();
+        private final Set<String> rejectOnce = ConcurrentHashMap.newKeySet(); //recipients refused the first time they are seen.
+
+        private CountingSmtpServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            executorService.execute(this::acceptConnections);
+        }
+
+        private int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptConnections() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    executorService.execute(() -> handle(socket));
+                } catch (IOException closed) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) {
+            try (socket;
+                 var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), US_ASCII));
+                 var writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), US_ASCII))) {
+                reply(writer, "220 localhost ESMTP");
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                    switch (command) {
+                        case "EHLO", "HELO" -> reply(writer, "250 localhost");
+                        case "RCPT" -> {
+                            String address = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+                            if (rejectOnce.remove(address)) {
+                                reply(writer, "550 Mailbox unavailable");
+                                continue;
+                            }
+                            recipients.incrementAndGet();
+                            reply(writer, "250 OK");
+                        }
+                        case "DATA" -> {
+                            reply(writer, "354 End data with <CR><LF>.<CR><LF>");
+                            while ((line = reader.readLine()) != null && !line.equals(".")) {
+                                //discard the message content
+                            }
+                            messages.incrementAndGet();
+                            reply(writer, "250 OK");
+                        }
+                        case "MAIL", "RSET", "NOOP" -> reply(writer, "250 OK");
+                        case "QUIT" -> {
+                            reply(writer, "221 Bye");
+                            return;
+                        }
+                        default -> reply(writer, "502 Command not implemented");
+                    }
+                }
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void reply(BufferedWriter writer, String reply) throws IOException {
+            writer.write(reply + "\r\n");
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.model.NotificationOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static dev.banji.LibReserve.model.enums.NotificationChannel.WEB;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NotificationOutboxPollerTests {
+    private final NotificationOutboxService notificationOutboxService = mock(NotificationOutboxService.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final NotificationRateLimiter notificationRateLimiter = mock(NotificationRateLimiter.class);
+    private final NotificationOutboxPoller notificationOutboxPoller = new NotificationOutboxPoller(notificationOutboxService, notificationService,
+            notificationRateLimiter, new SimpleMeterRegistry());
+    private final NotificationOutbox seatOffer = new NotificationOutbox(WEB, "MATRIC000001", "Seat available", "A seat is held for you.", false);
+    private final NotificationOutbox blacklist = new NotificationOutbox(WEB, "MATRIC000001", "Account Suspended", "Your account has been suspended.", true);
+
+    @BeforeEach
+    void setUp() {
+        when(notificationOutboxService.claimBatch()).thenReturn(List.of(seatOffer, blacklist));
+        when(notificationService.deliver(any(), anyString(), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void noticesToTheSameRecipientAreDeliveredAsOneDigest() {
+        when(notificationRateLimiter.tryAcquire(WEB, "MATRIC000001")).thenReturn(true);
+
+        notificationOutboxPoller.deliverPendingNotifications();
+
+        verify(notificationService).deliver(eq(WEB), eq("MATRIC000001"), eq("You have 2 new library notifications"), anyString());
+        verify(notificationOutboxService).markSent(List.of(seatOffer, blacklist));
+        verify(notificationOutboxService, never()).markSuppressed(any());
+    }
+
+    @Test
+    void accountNoticesGetPastAnExhaustedRateLimit() {
+        when(notificationRateLimiter.tryAcquire(WEB, "MATRIC000001")).thenReturn(false);
+
+        notificationOutboxPoller.deliverPendingNotifications();
+
+        verify(notificationOutboxService).markSuppressed(List.of(seatOffer));
+        verify(notificationService).deliver(WEB, "MATRIC000001", "Account Suspended", "Your account has been suspended.");
+        verify(notificationOutboxService).markSent(List.of(blacklist));
+    }
+}
@@ -0,0 +1,137 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.exceptions.InvalidDateRangeException;
+import dev.banji.LibReserve.model.Account;
+import dev.banji.LibReserve.model.Student;
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.enums.ReservationStatus;
+import dev.banji.LibReserve.repository.StudentRepository;
+import dev.banji.LibReserve.repository.StudentReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static dev.banji.LibReserve.model.enums.ReservationStatus.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"UNIVERSITY_URL=http://localhost", "MAIL_USERNAME=test", "MAIL_PASSWORD=test",
+        "JWT_SECRET_KEY=export-test-signing-key-that-is-long-enough-for-hs512-export-test-signing-key-0123456789"})
+class ReservationExportServiceTests {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2002, 2, 1);
+    private static final List<String> HEADER = List.of("id", "reservation_code", "matric_number", "department", "date", "time", "seat_number",
+            "intended_stay_in_minutes", "status", "check_out_date_and_time", "stay_extended", "extension_in_minutes", "created_on", "created_at");
+    @Autowired
+    private ReservationExportService reservationExportService;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private StudentReservationRepository studentReservationRepository;
+
+    @BeforeEach
+    void seedReservations() {
+        if (studentRepository.findByMatricNumber("EXPORT000001").isPresent()) return;
+        Student student = studentRepository.save(new Student("Export", null, "Student", "M", "+2347000000002", "export.student@test.com",
+                "testLga", "testState", "testCountry", new Account(true, true), new ArrayList<>(), "EXPORT000001", "Arts, \"Humanities\"", "200", "unused"));
+        StudentReservation extended = reservation(student, "EXPORT-3", FIRST_DAY.plusDays(2), LocalTime.of(8, 0), 3, STUDENT_CHECKED_OUT);
+        extended.setCheckOutDateAndTime(LocalDateTime.of(FIRST_DAY.plusDays(2), LocalTime.of(10, 30)));
+        extended.setStayExtended(true);
+        extended.setTotalExtensionDuration(Duration.ofMinutes(30));
+        studentReservationRepository.saveAll(List.of(
+                reservation(student, "EXPORT-2", FIRST_DAY.plusDays(1), LocalTime.of(14, 0), 2, CANCELLED),
+                reservation(student, "EXPORT-1", FIRST_DAY, LocalTime.of(9, 0), 1, BOOKED),
+                extended,
+                reservation(student, "EXPORT-4", FIRST_DAY.plusDays(3), LocalTime.of(9, 0), 4, BOOKED)));
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_LIBRARIAN")
+    void streamsTheReservationsOfTheRangeInDateOrder() throws IOException {
+        List<List<String>> rows = parse(export(FIRST_DAY, FIRST_DAY.plusDays(2), false));
+
+        assertThat(rows.get(0)).isEqualTo(HEADER);
+        assertThat(rows.subList(1, rows.size())).allSatisfy(row -> assertThat(row).hasSize(HEADER.size()))
+                .extracting(row -> row.subList(1, row.size())).containsExactly(
+                        List.of("EXPORT-1", "EXPORT000001", "Arts, \"Humanities\"", "2002-02-01", "09:00", "1", "120", "BOOKED", "", "false", "", "2002-01-31", "12:00"),
+                        List.of("EXPORT-2", "EXPORT000001", "Arts, \"Humanities\"", "2002-02-02", "14:00", "2", "120", "CANCELLED", "", "false", "", "2002-01-31", "12:00"),
+                        List.of("EXPORT-3", "EXPORT000001", "Arts, \"Humanities\"", "2002-02-03", "08:00", "3", "120", "STUDENT_CHECKED_OUT", "2002-02-03T10:30", "true", "30", "2002-01-31", "12:00"));
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_LIBRARIAN")
+    void theGzipVariantHoldsTheSameCsv() throws IOException {
+        byte[] plain = export(FIRST_DAY, FIRST_DAY.plusDays(3), false);
+        byte[] gzip = export(FIRST_DAY, FIRST_DAY.plusDays(3), true);
+
+        try (var inflated = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertThat(inflated.readAllBytes()).isEqualTo(plain);
+        }
+        assertThat(parse(plain)).hasSize(5);
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_LIBRARIAN")
+    void rejectsAnInvertedOrTooLongRange() {
+        assertThatThrownBy(() -> reservationExportService.reservationCsv(FIRST_DAY, FIRST_DAY.minusDays(1), false)).isInstanceOf(InvalidDateRangeException.class);
+        assertThatThrownBy(() -> reservationExportService.reservationCsv(FIRST_DAY, FIRST_DAY.plusDays(400), false)).isInstanceOf(InvalidDateRangeException.class);
+    }
+
+    @Test
+    @WithMockUser(authorities = "SCOPE_STUDENT")
+    void isOnlyForLibrarians() {
+        assertThatThrownBy(() -> reservationExportService.reservationCsv(FIRST_DAY, FIRST_DAY, false)).isInstanceOf(AccessDeniedException.class);
+    }
+
+    private byte[] export(LocalDate from, LocalDate to, boolean gzip) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        reservationExportService.reservationCsv(from, to, gzip).writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static List<List<String>> parse(byte[] csv) { //RFC 4180: quoted fields may hold commas, line breaks and doubled quotes.
+        String text = new String(csv, UTF_8);
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        var field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (quoted) {
+                if (character != '"') field.append(character);
+                else if (i + 1 < text.length() && text.charAt(i + 1) == '"') field.append(text.charAt(++i));
+                else quoted = false;
+            } else if (character == '"') quoted = true;
+            else if (character == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (character == '\n') {
+                row.add(field.toString());
+                field.setLength(0);
+                rows.add(row);
+                row = new ArrayList<>();
+            } else if (character != '\r') field.append(character);
+        }
+        return rows;
+    }
+
+    private static StudentReservation reservation(Student student, String code, LocalDate date, LocalTime start, long seatNumber, ReservationStatus status) {
+        return StudentReservation.builder().student(student).reservationCode(code).seatNumber(seatNumber).intendedStay(Duration.ofHours(2))
+                .dateReservationWasMadeFor(date).timeReservationWasMadeFor(start).checkInTime(start)
+                .reservationCreationDate(FIRST_DAY.minusDays(1)).reservationCreationTime(LocalTime.NOON).reservationStatus(status).build();
+    }
+}
@@ -0,0 +1,175 @@
+package dev.banji.LibReserve.service;
+
+import dev.banji.LibReserve.model.Account;
+import dev.banji.LibReserve.model.Student;
+import dev.banji.LibReserve.model.StudentReservation;
+import dev.banji.LibReserve.model.UtilizationRollup;
+import dev.banji.LibReserve.model.enums.ReservationStatus;
+import dev.banji.LibReserve.model.events.ReservationStatusChangedEvent;
+import dev.banji.LibReserve.repository.StudentRepository;
+import dev.banji.LibReserve.repository.StudentReservationRepository;
+import dev.banji.LibReserve.repository.UtilizationRollupRepository;
+import dev.banji.LibReserve.repository.UtilizationRollupRepository.HourlyTotals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static dev.banji.LibReserve.model.enums.ReservationStatus.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"UNIVERSITY_URL=http://localhost", "MAIL_USERNAME=test", "MAIL_PASSWORD=test",
+        "JWT_SECRET_KEY=rollup-test-signing-key-that-is-long-enough-for-hs512-rollup-test-signing-key-0123456789"})
+class UtilizationRollupServiceTests {
+    @Autowired
+    private UtilizationRollupService utilizationRollupService;
+    @Autowired
+    private UtilizationRollupRepository utilizationRollupRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private StudentReservationRepository studentReservationRepository;
+
+    @Test
+    void checkoutSpreadsTheStayFromTheActualCheckIn() throws InterruptedException {
+        LocalDate date = LocalDate.of(2001, 1, 1);
+        utilizationRollupService.onReservationStatusChanged(event(date, "DELTA", LocalTime.of(9, 0), LocalTime.of(9, 40), LocalTime.of(11, 15), STUDENT_CHECKED_OUT));
+
+        awaitRollup(date, 11, "DELTA", rollup -> rollup.getCheckOuts() == 1);
+        assertThat(rollup(date, 9, "DELTA").getOccupiedSeatMinutes()).isEqualTo(20);
+        assertThat(rollup(date, 10, "DELTA").getOccupiedSeatMinutes()).isEqualTo(60);
+        assertThat(rollup(date, 11, "DELTA").getOccupiedSeatMinutes()).isEqualTo(15);
+        assertThat(rollup(date, 11, "DELTA").getCheckOuts()).isEqualTo(1);
+        assertThat(utilizationRollupRepository.findById(new UtilizationRollup.Key(date, 8, "DELTA"))).isEmpty();
+    }
+
+    @Test
+    void statusesAreAttributedToTheBookedStartHour() throws InterruptedException {
+        LocalDate date = LocalDate.of(2001, 1, 2);
+        utilizationRollupService.onReservationStatusChanged(event(date, "START", LocalTime.of(13, 30), LocalTime.of(14, 5), LocalTime.of(15, 30), CHECKED_IN));
+        utilizationRollupService.onReservationStatusChanged(event(date, "START", LocalTime.of(13, 45), LocalTime.of(13, 45), LocalTime.of(15, 45), EXPIRED));
+        utilizationRollupService.onReservationStatusChanged(event(date, "START", LocalTime.of(13, 0), LocalTime.of(13, 0), LocalTime.of(14, 0), CANCELLED));
+
+        UtilizationRollup rollup = awaitRollup(date, 13, "START", written -> written.getCheckIns() + written.getExpiries() + written.getCancellations() == 3);
+        assertThat(rollup.getCheckIns()).isEqualTo(1);
+        assertThat(rollup.getExpiries()).isEqualTo(1);
+        assertThat(rollup.getCancellations()).isEqualTo(1);
+        assertThat(rollup.getOccupiedSeatMinutes()).isZero();
+    }
+
+    @Test
+    void aStayPastMidnightIsCountedToTheEndOfTheDay() throws InterruptedException {
+        LocalDate date = LocalDate.of(2001, 1, 3);
+        utilizationRollupService.onReservationStatusChanged(event(date, "MIDNIGHT", LocalTime.of(23, 0), LocalTime.of(23, 30), LocalTime.MAX, SYSTEM_CHECKED_OUT));
+
+        awaitRollup(date, 23, "MIDNIGHT", rollup -> rollup.getCheckOuts() == 1);
+        assertThat(rollup(date, 23, "MIDNIGHT").getOccupiedSeatMinutes()).isEqualTo(30);
+        assertThat(rollup(date, 23, "MIDNIGHT").getCheckOuts()).isEqualTo(1);
+        assertThat(utilizationRollupRepository.findById(new UtilizationRollup.Key(date.plusDays(1), 0, "MIDNIGHT"))).isEmpty();
+    }
+
+    @Test
+    void concurrentChangesAreAllCounted() throws InterruptedException {
+        LocalDate date = LocalDate.of(2001, 1, 4);
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 200; i++)
+            writers.execute(() -> utilizationRollupService.onReservationStatusChanged(event(date, "CONCURRENT", LocalTime.of(10, 0), LocalTime.of(10, 0), LocalTime.of(11, 0), CHECKED_IN)));
+        writers.shutdown();
+        assertThat(writers.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(awaitRollup(date, 10, "CONCURRENT", rollup -> rollup.getCheckIns() >= 200).getCheckIns()).isEqualTo(200);
+    }
+
+    @Test
+    void replayingADayGivesTheSameRowsEveryTime() throws InterruptedException {
+        LocalDate date = LocalDate.of(2001, 1, 5);
+        Student student = studentRepository.save(new Student("Rollup", null, "Student", "F", "+2347000000001", "rollup.student@test.com",
+                "testLga", "testState", "testCountry", new Account(true, true), new ArrayList<>(), "ROLLUP000001", "REPLAY", "400", "unused"));
+        studentReservationRepository.saveAll(List.of(
+                reservation(student, date, LocalTime.of(9, 0), LocalTime.of(9, 30), LocalDateTime.of(date, LocalTime.of(10, 45)), STUDENT_CHECKED_OUT),
+                reservation(student, date, LocalTime.of(14, 0), LocalTime.of(14, 0), null, CANCELLED)));
+        awaitRollup(date, 10, "REPLAY", rollup -> rollup.getCheckOuts() == 1); //the saves above are counted too, before the replay.
+        awaitRollup(date, 14, "REPLAY", rollup -> rollup.getCancellations() == 1);
+
+        utilizationRollupService.replay(date, date);
+        List<String> firstReplay = hours(date);
+        utilizationRollupService.replay(date, date);
+
+        assertThat(hours(date)).isEqualTo(firstReplay).containsExactly(
+                "9: 1 in, 0 out, 0 expired, 0 cancelled, 30 minutes",
+                "10: 0 in, 1 out, 0 expired, 0 cancelled, 45 minutes",
+                "14: 0 in, 0 out, 0 expired, 1 cancelled, 0 minutes");
+    }
+
+    @Test
+    void liveRowsEqualReplayedRows() throws InterruptedException {
+        LocalDate date = LocalDate.of(2001, 1, 6);
+        Student student = studentRepository.save(new Student("Live", null, "Student", "M", "+2347000000003", "live.student@test.com",
+                "testLga", "testState", "testCountry", new Account(true, true), new ArrayList<>(), "ROLLUP000002", "LIVE", "400", "unused"));
+        StudentReservation extendedWalkIn = studentReservationRepository.save(reservation(student, date, LocalTime.of(9, 0), LocalTime.of(9, 0), null, BOOKED));
+        extendedWalkIn.setReservationStatus(TIME_EXTENDED);
+        extendedWalkIn = studentReservationRepository.save(extendedWalkIn);
+        extendedWalkIn.setReservationStatus(STUDENT_CHECKED_OUT);
+        extendedWalkIn.setCheckOutDateAndTime(LocalDateTime.of(date, LocalTime.of(11, 30)));
+        studentReservationRepository.save(extendedWalkIn);
+        StudentReservation checkedIn = studentReservationRepository.save(reservation(student, date, LocalTime.of(12, 0), LocalTime.of(12, 0), null, BOOKED));
+        checkedIn.setReservationStatus(CHECKED_IN);
+        checkedIn.setCheckInTime(LocalTime.of(12, 10));
+        checkedIn = studentReservationRepository.save(checkedIn);
+        checkedIn.setReservationStatus(LIBRARIAN_CHECKED_OUT);
+        checkedIn.setCheckOutDateAndTime(LocalDateTime.of(date, LocalTime.of(13, 0)));
+        studentReservationRepository.save(checkedIn);
+        studentReservationRepository.save(reservation(student, date, LocalTime.of(15, 0), LocalTime.of(15, 20), LocalDateTime.of(date, LocalTime.of(16, 0)), SYSTEM_CHECKED_OUT));
+        studentReservationRepository.save(reservation(student, date, LocalTime.of(17, 0), LocalTime.of(17, 0), null, CANCELLED));
+        awaitRollup(date, 17, "LIVE", rollup -> rollup.getCancellations() == 1); //written in order, so every change above is counted.
+        List<String> liveRows = hours(date);
+
+        utilizationRollupService.replay(date, date);
+
+        assertThat(hours(date)).isEqualTo(liveRows).contains("9: 1 in, 0 out, 0 expired, 0 cancelled, 60 minutes",
+                "12: 1 in, 0 out, 0 expired, 0 cancelled, 50 minutes", "15: 1 in, 0 out, 0 expired, 0 cancelled, 40 minutes");
+    }
+
+    private UtilizationRollup rollup(LocalDate date, int hourOfDay, String department) {
+        return utilizationRollupRepository.findById(new UtilizationRollup.Key(date, hourOfDay, department)).orElseThrow();
+    }
+
+    private UtilizationRollup awaitRollup(LocalDate date, int hourOfDay, String department, Predicate<UtilizationRollup> written) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10); //the rollups are written by the writer thread.
+        Optional<UtilizationRollup> rollup;
+        while ((rollup = utilizationRollupRepository.findById(new UtilizationRollup.Key(date, hourOfDay, department))).filter(written).isEmpty()
+                && System.nanoTime() < deadline)
+            Thread.sleep(20);
+        return rollup.orElseThrow();
+    }
+
+    private List<String> hours(LocalDate date) {
+        return utilizationRollupRepository.sumPerHour(date, date).stream().map(UtilizationRollupServiceTests::format).toList();
+    }
+
+    private static String format(HourlyTotals totals) {
+        return String.format("%d: %d in, %d out, %d expired, %d cancelled, %d minutes", totals.getHourOfDay(), totals.getCheckIns(),
+                totals.getCheckOuts(), totals.getExpiries(), totals.getCancellations(), totals.getOccupiedSeatMinutes());
+    }
+
+    private static ReservationStatusChangedEvent event(LocalDate date, String department, LocalTime start, LocalTime checkedIn, LocalTime end, ReservationStatus status) {
+        return new ReservationStatusChangedEvent(1L, department, date, start, checkedIn, end, null, status);
+    }
+
+    private static StudentReservation reservation(Student student, LocalDate date, LocalTime start, LocalTime checkedIn, LocalDateTime checkOut, ReservationStatus status) {
+        return StudentReservation.builder().student(student).reservationCode("ROLLUP-" + start).seatNumber(1).intendedStay(Duration.ofHours(2))
+                .dateReservationWasMadeFor(date).timeReservationWasMadeFor(start).checkInTime(checkedIn).checkOutDateAndTime(checkOut)
+                .reservationCreationDate(date.minusDays(1)).reservationCreationTime(LocalTime.NOON).reservationStatus(status).build();
+    }
+}